@@ -0,0 +1,22 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, so every result comes with
+ * its allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ * Any normal JMH command line options can be passed, for example a benchmark
+ * name filter: {@code java -jar benchmarks/target/benchmarks-jar-with-dependencies.jar ChessGame}
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
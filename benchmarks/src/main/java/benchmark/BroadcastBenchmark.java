@@ -0,0 +1,101 @@
+package benchmark;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.openjdk.jmh.annotations.*;
+import websocket.ConnectionManager;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionManager.broadcastToGame with sessions that discard what they are sent,
+ * so only the server side cost of a broadcast is measured. Sessions are spread
+ * over many games to show how a broadcast scales with total connections.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmark {
+
+    private static final int PLAYERS_PER_GAME = 4;
+
+    @Param({"100", "10000"})
+    public int totalSessions;
+
+    private ConnectionManager connectionManager;
+    private ServerMessage loadGame;
+    private ServerMessage notification;
+
+    @Setup
+    public void setUp() {
+        connectionManager = new ConnectionManager();
+        for (int i = 0; i < totalSessions; i++) {
+            connectionManager.add("user" + i, discardingSession(), i / PLAYERS_PER_GAME);
+        }
+        loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+        loadGame.setGame(Positions.load(Positions.MIDDLEGAME));
+        notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "user0 moved from e2 to e4");
+    }
+
+    @Benchmark
+    public void broadcastLoadGame() throws IOException {
+        connectionManager.broadcastToGame(0, loadGame);
+    }
+
+    @Benchmark
+    public void broadcastNotification() throws IOException {
+        connectionManager.broadcastToGame(0, notification);
+    }
+
+    private static Session discardingSession() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+                BroadcastBenchmark.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    // complete non-blocking writes at once so the connection queues stay empty
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        ((WriteCallback) args[1]).writeSuccess();
+                        return null;
+                    }
+                    return defaultValue(proxy, method.getName(), method.getReturnType(), args);
+                });
+        return (Session) Proxy.newProxyInstance(
+                BroadcastBenchmark.class.getClassLoader(),
+                new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    default -> defaultValue(proxy, method.getName(), method.getReturnType(), args);
+                });
+    }
+
+    private static Object defaultValue(Object proxy, String name, Class<?> type, Object[] args) {
+        switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "DiscardingSession@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                break;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessGameBenchmark {
+
+    private ChessGame middlegame;
+    private ChessGame checkmate;
+    private ChessGame stalemate;
+    private final List<ChessPosition> sideToMove = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        middlegame = Positions.load(Positions.MIDDLEGAME);
+        checkmate = Positions.load(Positions.CHECKMATE);
+        stalemate = Positions.load(Positions.STALEMATE);
+
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = middlegame.getBoard().getPiece(position);
+                if (piece != null && piece.getTeamColor() == middlegame.getTeamTurn()) {
+                    sideToMove.add(position);
+                }
+            }
+        }
+    }
+
+    /**
+     * validMoves for every piece of the side to move
+     */
+    @Benchmark
+    public void validMovesAllPieces(Blackhole blackhole) {
+        for (ChessPosition position : sideToMove) {
+            blackhole.consume(middlegame.validMoves(position));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheckmateTrue() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateFalse() {
+        return middlegame.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemateTrue() {
+        return stalemate.isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public boolean isInStalemateFalse() {
+        return middlegame.isInStalemate(ChessGame.TeamColor.WHITE);
+    }
+}
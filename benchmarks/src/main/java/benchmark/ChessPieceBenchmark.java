@@ -0,0 +1,56 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessPieceBenchmark {
+
+    private ChessBoard board;
+    private final List<ChessPosition> positions = new ArrayList<>();
+    private final List<ChessPiece> pieces = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        board = Positions.load(Positions.MIDDLEGAME).getBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null) {
+                    positions.add(position);
+                    pieces.add(piece);
+                }
+            }
+        }
+    }
+
+    /**
+     * pieceMoves for every piece on a middlegame board
+     */
+    @Benchmark
+    public void pieceMovesAllPieces(Blackhole blackhole) {
+        for (int i = 0; i < pieces.size(); i++) {
+            blackhole.consume(pieces.get(i).pieceMoves(board, positions.get(i)));
+        }
+    }
+
+    @Benchmark
+    public Object pieceMovesQueen() {
+        ChessPosition queen = new ChessPosition(1, 4);
+        return new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN).pieceMoves(board, queen);
+    }
+}
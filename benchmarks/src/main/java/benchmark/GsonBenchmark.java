@@ -0,0 +1,58 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Gson round trip GameDAO used to do for every game it stored and loaded,
+ * next to the GameCodec text form that replaced it
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmark {
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private String json;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        game = Positions.load(Positions.MIDDLEGAME);
+        json = gson.toJson(game);
+        text = GameCodec.toText(game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame fromJson() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public ChessGame roundTrip() {
+        return gson.fromJson(gson.toJson(game), ChessGame.class);
+    }
+
+    @Benchmark
+    public String toCodecText() {
+        return GameCodec.toText(game);
+    }
+
+    @Benchmark
+    public ChessGame fromCodecText() {
+        return GameCodec.fromText(text);
+    }
+}
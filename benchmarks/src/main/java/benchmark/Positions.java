@@ -0,0 +1,20 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.Perft;
+
+/**
+ * Positions shared by the benchmarks
+ */
+final class Positions {
+    static final String MIDDLEGAME = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w - - 0 1";
+    static final String CHECKMATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 0 1";
+    static final String STALEMATE = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+
+    private Positions() {
+    }
+
+    static ChessGame load(String fen) {
+        return Perft.fromFen(fen);
+    }
+}
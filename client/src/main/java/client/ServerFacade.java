@@ -3,7 +3,7 @@ package client;
 import com.google.gson.Gson;
 import model.AuthData;
 import model.UserData;
-import model.GameData;
+import model.GameSummary;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ServerMessage;
 import chess.*;
@@ -11,6 +11,8 @@ import chess.*;
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ServerFacade {
@@ -87,19 +89,29 @@ public class ServerFacade {
         }
     }
 
-    public GameData[] listGames(String authToken) throws Exception {
-        var conn = (HttpURLConnection) new URL(serverUrl + "/game").openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", authToken);
-        conn.setRequestProperty("Content-Type", "application/json");
+    /**
+     * Lists every game, following the server's pages until the last one
+     */
+    public GameSummary[] listGames(String authToken) throws Exception {
+        List<GameSummary> games = new ArrayList<>();
+        Integer cursor = 0;
+        while (cursor != null) {
+            var conn = (HttpURLConnection) new URL(serverUrl + "/game?after=" + cursor).openConnection();
+            conn.setRequestMethod("GET");
+            conn.setRequestProperty("Authorization", authToken);
+            conn.setRequestProperty("Content-Type", "application/json");
 
-        if (conn.getResponseCode() != 200) {
-            throwError(conn);
-        }
+            if (conn.getResponseCode() != 200) {
+                throwError(conn);
+            }
 
-        try (var in = new InputStreamReader(conn.getInputStream())) {
-            return gson.fromJson(in, GameListWrapper.class).games;
+            try (var in = new InputStreamReader(conn.getInputStream())) {
+                GameListWrapper page = gson.fromJson(in, GameListWrapper.class);
+                games.addAll(List.of(page.games));
+                cursor = page.nextCursor;
+            }
         }
+        return games.toArray(new GameSummary[0]);
     }
 
     public void createGame(String authToken, String gameName) throws Exception {
@@ -153,7 +165,9 @@ public class ServerFacade {
     }
 
     private static class GameListWrapper {
-        GameData[] games;
+        GameSummary[] games;
+        // null on the last page
+        Integer nextCursor;
     }
 
     private static class GameNameWrapper {
@@ -1,11 +1,15 @@
 package client.websocket;
 
+import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPosition;
+import chess.InvalidMoveException;
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
 
+import websocket.commands.UserGameCommand;
+
 import java.util.List;
 
 @WebSocket
@@ -13,7 +17,14 @@ public class WebSocketConnection {
     private Session session;
     private static final Gson gson = new Gson();
 
-    private record ServerMessage(String serverMessageType, List<MoveData> moves, String message, String errorMessage) {}
+    // the game this connection follows, kept current by LOAD_GAME and MOVE_MADE
+    private String authToken;
+    private int gameID;
+    private ChessGame game;
+    private boolean awaitingGame;
+
+    private record ServerMessage(String serverMessageType, List<MoveData> moves, String message, String errorMessage,
+                                 ChessGame game, ChessMove move, ChessGame.GameStatus status, Integer sequence) {}
     private record MoveData(Position startPosition, Position endPosition) {}
     private record Position(int row, int col) {}
 
@@ -47,8 +58,13 @@ public class WebSocketConnection {
                 System.out.println(serverMessage.errorMessage());
             }
             case "LOAD_GAME" -> {
+                synchronized (this) {
+                    game = serverMessage.game();
+                    awaitingGame = false;
+                }
                 System.out.println("[Board update] (game reloaded)");
             }
+            case "MOVE_MADE" -> applyMove(serverMessage);
             default -> {
                 System.out.println("[WebSocket] Unknown message type: " + serverMessage.serverMessageType());
             }
@@ -60,6 +76,57 @@ public class WebSocketConnection {
         System.out.println("[WebSocket] Connection closed: " + reason);
     }
 
+    synchronized void follow(String authToken, int gameID) {
+        this.authToken = authToken;
+        this.gameID = gameID;
+        this.game = null;
+        // CONNECT answers with the whole game
+        this.awaitingGame = true;
+    }
+
+    synchronized ChessGame getGame() {
+        return game == null ? null : game.deepCopy();
+    }
+
+    /**
+     * Plays a MOVE_MADE on the local copy. If a move was missed, or the copy disagrees
+     * with the server, the whole game is asked for again.
+     */
+    private void applyMove(ServerMessage update) {
+        synchronized (this) {
+            if (game == null && awaitingGame) {
+                // the reload on its way already includes this move
+                return;
+            }
+            boolean inSequence = game != null && update.sequence() != null
+                    && update.sequence() == game.getPly() + 1;
+            if (inSequence) {
+                try {
+                    game.makeMove(update.move());
+                }
+                catch (InvalidMoveException e) {
+                    inSequence = false;
+                }
+            }
+            if (!inSequence) {
+                game = null;
+                awaitingGame = true;
+                resync();
+                return;
+            }
+        }
+        System.out.println("[Board update] move " + update.sequence() + ", " + update.status());
+    }
+
+    private void resync() {
+        try {
+            send(gson.toJson(new UserGameCommand(UserGameCommand.CommandType.REDRAW, authToken, gameID)));
+        }
+        catch (Exception e) {
+            System.out.println("[WebSocket] Could not reload the game: " + e.getMessage());
+        }
+    }
+
     public void send(String message) throws Exception {
         session.getRemote().sendString(message);
     }
@@ -1,5 +1,6 @@
 package client.websocket;
 
+import chess.ChessGame;
 import chess.ChessMove;
 import chess.ChessPosition;
 import websocket.commands.UserGameCommand;
@@ -26,6 +27,25 @@ public class WebSocketFacade {
         return connections.get(authToken);
     }
 
+    /**
+     * Joins gameID over the WebSocket. The connection then keeps its own copy of the
+     * game, which the server updates one move at a time.
+     */
+    public static void sendConnect(String authToken, int gameID) throws Exception {
+        WebSocketConnection conn = getConnection(authToken);
+        conn.follow(authToken, gameID);
+        conn.send(gson.toJson(UserGameCommand.connectWithMoveUpdates(authToken, gameID)));
+    }
+
+    /**
+     * @return a copy of the game as last seen over the WebSocket, or null if none has
+     * arrived yet
+     */
+    public static ChessGame currentGame(String authToken) {
+        WebSocketConnection conn = connections.get(authToken);
+        return conn == null ? null : conn.getGame();
+    }
+
     public static void sendMove(String authToken, int gameID, ChessMove move) throws Exception {
         WebSocketConnection conn = getConnection(authToken);
         var cmd = new UserGameCommand(UserGameCommand.CommandType.MAKE_MOVE, authToken, gameID, move, null);
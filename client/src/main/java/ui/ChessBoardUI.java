@@ -9,7 +9,10 @@ import java.util.Map;
 public class ChessBoardUI {
 
     public static void drawBoard(String authToken, ServerFacade facade, int gameID, String perspective) throws Exception {
-        ChessGame game = facade.getGameState(authToken, gameID);
+        drawBoard(facade.getGameState(authToken, gameID), perspective);
+    }
+
+    public static void drawBoard(ChessGame game, String perspective) {
         ChessBoard board = game.getBoard();
 
         boolean blackPerspective = perspective.equalsIgnoreCase("BLACK");
@@ -24,7 +27,7 @@ public class ChessBoardUI {
 
             for (int col = 1; col <= 8; col++) {
                 int displayCol = blackPerspective ? 9 - col : col;
-                ChessPosition pos = new ChessPosition(displayRow, displayCol);
+                ChessPosition pos = ChessPosition.of(displayRow, displayCol);
                 ChessPiece piece = board.getPiece(pos);
 
                 boolean isLightSquare = (displayRow + displayCol) % 2 == 0;
@@ -12,6 +12,7 @@ public class GameUI {
     public static void run(String authToken, int gameID, ServerFacade facade, String perspective) throws Exception {
         Scanner scanner = new Scanner(System.in);
         System.out.println("You are now in a game! Type 'help' to see commands.");
+        WebSocketFacade.sendConnect(authToken, gameID);
 
         while (true) {
             System.out.print("[Game] >>> ");
@@ -60,7 +61,14 @@ public class GameUI {
 
                 case "redraw" -> {
                     try {
-                        ChessBoardUI.drawBoard(authToken, facade, gameID, perspective);
+                        // the copy kept up to date over the WebSocket saves a trip to the server
+                        ChessGame game = WebSocketFacade.currentGame(authToken);
+                        if (game != null) {
+                            ChessBoardUI.drawBoard(game, perspective);
+                        }
+                        else {
+                            ChessBoardUI.drawBoard(authToken, facade, gameID, perspective);
+                        }
                     } catch (Exception e) {
                         System.out.println("Error drawing board: " + e.getMessage());
                         e.printStackTrace();
@@ -2,7 +2,7 @@ package ui;
 
 import client.ServerFacade;
 import model.AuthData;
-import model.GameData;
+import model.GameSummary;
 
 import java.util.*;
 
@@ -50,16 +50,17 @@ public class PostloginUI {
                 }
                 case "list" -> {
                     try {
-                        GameData[] games = facade.listGames(auth.authToken());
+                        GameSummary[] games = facade.listGames(auth.authToken());
                         gameNumberToID.clear();
                         System.out.println("Games:");
                         for (int i = 0; i < games.length; i++) {
                             gameNumberToID.put(i + 1, games[i].gameID());
-                            System.out.printf("  %d. \"%s\"  White: %s  Black: %s%n",
+                            System.out.printf("  %d. \"%s\"  White: %s  Black: %s  (%s)%n",
                                     i + 1,
                                     games[i].gameName(),
                                     orEmpty(games[i].whiteUsername()),
-                                    orEmpty(games[i].blackUsername()));
+                                    orEmpty(games[i].blackUsername()),
+                                    games[i].status());
                         }
                         if (games.length == 0) {
                             System.out.println("  (no games available)");
@@ -75,9 +76,9 @@ public class PostloginUI {
                         int gameID = gameNumberToID.getOrDefault(number, -1);
                         if (gameID == -1) { throw new Exception("Invalid game number"); }
 
-                        GameData[] games = facade.listGames(auth.authToken());
-                        GameData selectedGame = null;
-                        for (GameData game: games) {
+                        GameSummary[] games = facade.listGames(auth.authToken());
+                        GameSummary selectedGame = null;
+                        for (GameSummary game: games) {
                             if (game.gameID() == gameID) {
                                 selectedGame = game;
                                 break;
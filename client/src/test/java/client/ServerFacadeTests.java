@@ -8,7 +8,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.io.InputStream;
-import model.GameData;
+import model.GameSummary;
 
 public class ServerFacadeTests {
 
@@ -122,7 +122,7 @@ public class ServerFacadeTests {
         }, "Game creation shouldn't throw if with valid auth token");
 
 
-        GameData[] games = facade.listGames(auth.authToken());
+        GameSummary[] games = facade.listGames(auth.authToken());
         boolean found = false;
         for (var g : games) {
             if (g.gameName().equals("My Game")) {
@@ -152,7 +152,7 @@ public class ServerFacadeTests {
         var auth = facade.register("user", "password", "abc123@test.com");
 
         facade.createGame(auth.authToken(), "Test Game");
-        GameData[] games = facade.listGames(auth.authToken());
+        GameSummary[] games = facade.listGames(auth.authToken());
 
         int gameID = games[0].gameID();
 
@@ -167,7 +167,7 @@ public class ServerFacadeTests {
         var auth = facade.register("user", "password", "abc123@test.com");
 
         facade.createGame(auth.authToken(), "Failed Game");
-        GameData[] games = facade.listGames(auth.authToken());
+        GameSummary[] games = facade.listGames(auth.authToken());
         int gameID = games[0].gameID();
 
         Exception ex = assertThrows(Exception.class, () -> {
@@ -26,6 +26,8 @@ public class Main {
 
         Server server = new Server();
         server.run(8080);
+        // write back cached games when the process is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
 
     }
 }
\ No newline at end of file
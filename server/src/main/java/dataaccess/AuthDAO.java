@@ -3,12 +3,22 @@ package dataaccess;
 import model.AuthData;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.sql.*;
 
 public class AuthDAO {
     private final Map<String, AuthData> authTokens = new HashMap<>();
 
 
+    /**
+     * Issues a new token for username and stores it
+     */
+    public AuthData createAuth(String username) throws DataAccessException {
+        String token = UUID.randomUUID().toString();
+        createAuth(token, username);
+        return new AuthData(token, username);
+    }
+
     public void createAuth(String authToken, String username) throws DataAccessException {
         String sql = "INSERT INTO auth_tokens (token, username) VALUES (?, ?)";
 
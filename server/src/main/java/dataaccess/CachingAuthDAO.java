@@ -0,0 +1,177 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link AuthDAO} that remembers recent token lookups.
+ * <p>
+ * Valid tokens are kept for a while, and so are tokens the database did not know,
+ * so a client retrying with a bad token does not hit the database every time. The
+ * cache holds a bounded number of tokens, dropping the least recently used first.
+ * {@link #deleteAuth} and {@link #clear} take effect at once; a lookup that was
+ * already reading the database when a token was deleted does not put it back.
+ */
+public class CachingAuthDAO extends AuthDAO {
+
+    /**
+     * Lookup counts since the cache was created, and the tokens held right now
+     */
+    public record Stats(long hits, long negativeHits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long lookups = hits + negativeHits + misses;
+            return lookups == 0 ? 0 : (double) (hits + negativeHits) / lookups;
+        }
+    }
+
+    /**
+     * Told when tokens stop being valid, so whoever trusted them can stop
+     */
+    public interface RevocationListener {
+        void revoked(String authToken);
+
+        void revokedAll();
+    }
+
+    // auth is null for a token the database did not have
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    private final AuthDAO store;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Map<String, Entry> entries;
+    private final List<RevocationListener> listeners = new CopyOnWriteArrayList<>();
+
+    // bumped by every delete, so a lookup that raced one knows its answer is stale
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingAuthDAO() {
+        this(new AuthDAO());
+    }
+
+    public CachingAuthDAO(AuthDAO store) {
+        this(store, 10_000, TimeUnit.MINUTES.toMillis(1), TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * @param store              where tokens are read from and written to
+     * @param maxEntries         most tokens, valid or not, held at once
+     * @param ttlMillis          how long a valid token is trusted without asking the database
+     * @param negativeTtlMillis  how long an unknown token is remembered as unknown
+     */
+    public CachingAuthDAO(AuthDAO store, int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        this.store = store;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public AuthData createAuth(String username) throws DataAccessException {
+        AuthData auth = store.createAuth(username);
+        remember(auth.authToken(), auth, generation());
+        return auth;
+    }
+
+    @Override
+    public void createAuth(String authToken, String username) throws DataAccessException {
+        store.createAuth(authToken, username);
+        // a new token is usually used straight away
+        remember(authToken, new AuthData(authToken, username), generation());
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return store.getAuth(null);
+        }
+
+        long seenGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(authToken);
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+                (entry.auth() == null ? negativeHits : hits).increment();
+                return entry.auth();
+            }
+            seenGeneration = generation;
+        }
+
+        misses.increment();
+        AuthData auth = store.getAuth(authToken);
+        remember(authToken, auth, seenGeneration);
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        invalidate(authToken);
+        store.deleteAuth(authToken);
+        // a lookup may have started between the two lines above
+        invalidate(authToken);
+        listeners.forEach(listener -> listener.revoked(authToken));
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        invalidateAll();
+        store.clear();
+        invalidateAll();
+    }
+
+    /**
+     * Forgets every token, for when the table is wiped without going through this DAO
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            generation++;
+            entries.clear();
+        }
+        listeners.forEach(RevocationListener::revokedAll);
+    }
+
+    public void addRevocationListener(RevocationListener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private synchronized void invalidate(String authToken) {
+        generation++;
+        entries.remove(authToken);
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized void remember(String authToken, AuthData auth, long seenGeneration) {
+        if (seenGeneration != generation) {
+            return;
+        }
+        long ttl = auth == null ? negativeTtlMillis : ttlMillis;
+        entries.put(authToken, new Entry(auth, System.currentTimeMillis() + ttl));
+    }
+}
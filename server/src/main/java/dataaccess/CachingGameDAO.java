@@ -0,0 +1,465 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.PackedMove;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link GameDAO} that keeps one live copy of each game in use and writes changes
+ * back to the database behind the caller.
+ * <p>
+ * {@link #getGame} loads a game once and then hands out the same {@link GameData}
+ * until the game goes idle. Moves and updates to a cached game are queued and
+ * written by a background thread every flush interval, all pending moves of a game
+ * in one batch. A game that has just ended is written straight away, and
+ * {@link #close} writes everything still queued. Games nobody has touched for a
+ * while are dropped from memory once they are fully written.
+ * <p>
+ * The live {@link ChessGame} belongs to whoever runs the game's commands, one thread
+ * at a time; nothing here reads it on any other thread. Every change through this DAO
+ * also stores a {@link GameCodec} copy of the state it left behind, which the flush
+ * thread writes and {@link #getGameSnapshot} decodes for other readers. Seats change
+ * only through {@link #replacePlayer}, under the game's lock, so a join and a leave
+ * cannot undo each other.
+ */
+public class CachingGameDAO extends GameDAO implements AutoCloseable {
+
+    private final GameDAO store;
+    private final long idleMillis;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher;
+
+    private static final class Entry {
+        GameData data;
+        long lastUsed = System.currentTimeMillis();
+        boolean evicted;
+
+        // the game as of the last change recorded here, safe to decode on any thread
+        byte[] state;
+        boolean gameOver;
+
+        // written state not yet in the database
+        final List<LoggedMove> pendingMoves = new ArrayList<>();
+        boolean snapshotDue;
+        boolean metadataDirty;
+
+        // keeps two flushes of the same game from writing out of order
+        final Object flushLock = new Object();
+
+        // nobody else has seen data yet, so encoding it here is safe
+        Entry(GameData data) {
+            this.data = data;
+            this.state = GameCodec.encode(data.game());
+            this.gameOver = data.game().getGameOver();
+        }
+
+        boolean hasPending() {
+            return !pendingMoves.isEmpty() || metadataDirty || snapshotDue;
+        }
+
+        // callers hold the entry's lock
+        GameSummary summary() {
+            return new GameSummary(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                    GameSummary.statusOf(data.whiteUsername(), data.blackUsername(), gameOver));
+        }
+
+        // callers hold the entry's lock
+        GameData snapshot() {
+            return new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                    GameCodec.decode(state));
+        }
+    }
+
+    public CachingGameDAO() {
+        this(new GameDAO(), 250, TimeUnit.MINUTES.toMillis(10));
+    }
+
+    /**
+     * @param store        where games are read from and written to
+     * @param flushMillis  longest a change waits before it is written
+     * @param idleMillis   how long an untouched, fully written game stays cached
+     */
+    public CachingGameDAO(GameDAO store, long flushMillis, long idleMillis) {
+        this.store = store;
+        this.idleMillis = idleMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushDirty, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        return store.createGame(gameName);
+    }
+
+    /**
+     * Hands out the live copy of the game; only for the thread that runs the game's commands
+     */
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        while (true) {
+            Entry entry = load(gameID);
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.lastUsed = System.currentTimeMillis();
+                    return entry.data;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes the game as of its last recorded change, without touching the live copy
+     */
+    @Override
+    public GameData getGameSnapshot(int gameID) throws DataAccessException {
+        while (true) {
+            Entry entry = load(gameID);
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    return entry.snapshot();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets the database filter and page, then shows cached games as they are in memory.
+     * Queued seat changes and unwritten game ends are written first so the database
+     * filters on what the summaries show; they are rare, and other queued moves never
+     * change a summary, so those wait for the flusher. A game whose write fails is still
+     * shown from memory, and dropped if it no longer matches, in which case more rows are
+     * fetched so the page is not cut short.
+     */
+    @Override
+    public List<GameSummary> listGameSummaries(GameFilter filter, String username, int afterGameID, int limit)
+            throws DataAccessException {
+        for (Integer gameID : dirty) {
+            Entry entry = entries.get(gameID);
+            if (entry == null) {
+                continue;
+            }
+            boolean summaryChanged;
+            synchronized (entry) {
+                summaryChanged = entry.metadataDirty || entry.gameOver && entry.hasPending();
+            }
+            if (summaryChanged) {
+                try {
+                    flush(gameID, entry);
+                } catch (DataAccessException e) {
+                    System.err.println("Could not write game " + gameID + ", will retry: " + e.getMessage());
+                }
+            }
+        }
+
+        List<GameSummary> games = new ArrayList<>();
+        int after = afterGameID;
+        while (games.size() < limit) {
+            int wanted = limit - games.size();
+            List<GameSummary> rows = store.listGameSummaries(filter, username, after, wanted);
+            for (GameSummary game : rows) {
+                after = game.gameID();
+                Entry entry = entries.get(game.gameID());
+                if (entry != null) {
+                    synchronized (entry) {
+                        if (!entry.evicted) {
+                            game = entry.summary();
+                        }
+                    }
+                }
+                if (filter.matches(game, username)) {
+                    games.add(game);
+                }
+            }
+            if (rows.size() < wanted) {
+                // the database has no more matching rows
+                break;
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Loads the game if needed so that every seat change goes through its lock
+     */
+    @Override
+    public boolean replacePlayer(int gameID, ChessGame.TeamColor color, String expected, String replacement)
+            throws DataAccessException {
+        while (true) {
+            Entry entry = load(gameID);
+            synchronized (entry) {
+                if (entry.evicted) {
+                    continue;
+                }
+                GameData data = entry.data;
+                String current = color == ChessGame.TeamColor.WHITE ? data.whiteUsername() : data.blackUsername();
+                if (!Objects.equals(current, expected)) {
+                    return false;
+                }
+                entry.data = color == ChessGame.TeamColor.WHITE
+                        ? new GameData(gameID, replacement, data.blackUsername(), data.gameName(), data.game())
+                        : new GameData(gameID, data.whiteUsername(), replacement, data.gameName(), data.game());
+                entry.metadataDirty = true;
+                entry.lastUsed = System.currentTimeMillis();
+            }
+            dirty.add(gameID);
+            return true;
+        }
+    }
+
+    /**
+     * Replaces the whole game. The caller must own updatedGame's {@link ChessGame}, which
+     * becomes the live copy if the game is cached.
+     */
+    @Override
+    public void updateGame(int gameID, GameData updatedGame) throws DataAccessException {
+        Entry entry = entries.get(gameID);
+        boolean queued = false;
+        if (entry != null) {
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.data = updatedGame;
+                    entry.state = GameCodec.encode(updatedGame.game());
+                    entry.gameOver = updatedGame.game().getGameOver();
+                    entry.metadataDirty = true;
+                    entry.lastUsed = System.currentTimeMillis();
+                    queued = true;
+                }
+            }
+        }
+
+        if (!queued) {
+            store.updateGame(gameID, updatedGame);
+        }
+        else if (updatedGame.game().getGameOver()) {
+            flush(gameID, entry);
+        }
+        else {
+            dirty.add(gameID);
+        }
+    }
+
+    @Override
+    public void appendMove(int gameID, ChessGame game, ChessMove move) throws DataAccessException {
+        Entry entry = entries.get(gameID);
+        boolean queued = false;
+        if (entry != null) {
+            synchronized (entry) {
+                if (!entry.evicted && entry.data.game() == game) {
+                    entry.pendingMoves.add(new LoggedMove(game.getPly(), PackedMove.fromChessMove(move)));
+                    entry.state = GameCodec.encode(game);
+                    entry.gameOver = game.getGameOver();
+                    entry.snapshotDue |= game.getPly() % SNAPSHOT_INTERVAL == 0;
+                    entry.lastUsed = System.currentTimeMillis();
+                    queued = true;
+                }
+            }
+        }
+
+        if (!queued) {
+            store.appendMove(gameID, game, move);
+        }
+        else if (game.getGameOver()) {
+            flush(gameID, entry);
+        }
+        else {
+            dirty.add(gameID);
+        }
+    }
+
+    @Override
+    public void appendMoves(int gameID, List<LoggedMove> moves, ChessGame snapshot) throws DataAccessException {
+        store.appendMoves(gameID, moves, snapshot);
+    }
+
+    @Override
+    public void saveGameState(int gameID, ChessGame game) throws DataAccessException {
+        Entry entry = entries.get(gameID);
+        boolean queued = false;
+        if (entry != null) {
+            synchronized (entry) {
+                if (!entry.evicted && entry.data.game() == game) {
+                    entry.state = GameCodec.encode(game);
+                    entry.gameOver = game.getGameOver();
+                    entry.snapshotDue = true;
+                    entry.lastUsed = System.currentTimeMillis();
+                    queued = true;
+                }
+            }
+        }
+
+        if (!queued) {
+            store.saveGameState(gameID, game);
+        }
+        else if (game.getGameOver()) {
+            flush(gameID, entry);
+        }
+        else {
+            dirty.add(gameID);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        discardAll();
+        store.clear();
+    }
+
+    /**
+     * Forgets every cached game along with any changes not yet written, for when the
+     * tables are wiped underneath the cache
+     */
+    public void discardAll() {
+        for (Entry entry : entries.values()) {
+            synchronized (entry) {
+                entry.evicted = true;
+                entry.pendingMoves.clear();
+                entry.metadataDirty = false;
+                entry.snapshotDue = false;
+            }
+        }
+        entries.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Writes every queued change now
+     *
+     * @throws DataAccessException with the first failure, after trying every game
+     */
+    public void flushAll() throws DataAccessException {
+        DataAccessException failure = null;
+        for (Map.Entry<Integer, Entry> entry : entries.entrySet()) {
+            try {
+                flush(entry.getKey(), entry.getValue());
+            } catch (DataAccessException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops the background writer and writes everything still queued
+     */
+    @Override
+    public void close() throws DataAccessException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+    }
+
+    private void flush(int gameID, Entry entry) throws DataAccessException {
+        synchronized (entry.flushLock) {
+            List<LoggedMove> moves;
+            GameData data;
+            ChessGame state;
+            boolean metadata;
+            boolean snapshot;
+            synchronized (entry) {
+                if (!entry.hasPending()) {
+                    return;
+                }
+                moves = new ArrayList<>(entry.pendingMoves);
+                entry.pendingMoves.clear();
+                data = entry.data;
+                state = GameCodec.decode(entry.state);
+                metadata = entry.metadataDirty;
+                snapshot = entry.snapshotDue || state.getGameOver();
+                entry.metadataDirty = false;
+                entry.snapshotDue = false;
+            }
+
+            try {
+                // a metadata write below stores the snapshot anyway
+                if (!moves.isEmpty() || snapshot && !metadata) {
+                    store.appendMoves(gameID, moves, snapshot && !metadata ? state : null);
+                    // those plies are committed now, so a failure below must not queue them again
+                    moves = List.of();
+                    snapshot &= metadata;
+                }
+                if (metadata) {
+                    store.updateGame(gameID, new GameData(
+                            gameID, data.whiteUsername(), data.blackUsername(), data.gameName(), state));
+                }
+            } catch (DataAccessException e) {
+                synchronized (entry) {
+                    if (!entry.evicted) {
+                        entry.pendingMoves.addAll(0, moves);
+                        entry.metadataDirty |= metadata;
+                        entry.snapshotDue |= snapshot;
+                        dirty.add(gameID);
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    private Entry load(int gameID) throws DataAccessException {
+        Entry entry = entries.get(gameID);
+        if (entry == null) {
+            Entry loaded = new Entry(store.getGame(gameID));
+            entry = entries.putIfAbsent(gameID, loaded);
+            if (entry == null) {
+                entry = loaded;
+            }
+        }
+        return entry;
+    }
+
+    private void flushDirty() {
+        for (Integer gameID : dirty) {
+            dirty.remove(gameID);
+            Entry entry = entries.get(gameID);
+            if (entry == null) {
+                continue;
+            }
+            try {
+                flush(gameID, entry);
+            } catch (DataAccessException e) {
+                System.err.println("Could not write game " + gameID + ", will retry: " + e.getMessage());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        evictIdle();
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        entries.forEach((gameID, entry) -> {
+            synchronized (entry) {
+                if (entry.lastUsed < cutoff && !entry.hasPending() && !dirty.contains(gameID)) {
+                    entry.evicted = true;
+                    entries.remove(gameID, entry);
+                }
+            }
+        });
+    }
+}
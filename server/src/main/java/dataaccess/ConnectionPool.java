@@ -0,0 +1,413 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded pool of JDBC connections.
+ * <p>
+ * At most maxSize connections exist at once; a borrower waits up to borrowTimeout for
+ * one to come back before giving up. Idle connections are checked with
+ * {@link Connection#isValid} before being handed out, and replaced if the server
+ * dropped them. Callers get a wrapper whose {@code close()} hands the connection
+ * back instead of closing it, so DAO code keeps using try-with-resources as before.
+ * <p>
+ * Once {@link #warmUp} has run, a background task tops the idle connections back up
+ * to minSize after validation failures or errors have thrown some away, until
+ * {@link #clearIdle} or {@link #close} is called.
+ * <p>
+ * A connection held longer than the leak threshold is reported once on stderr along
+ * with the stack that borrowed it. That stack is only captured while leak detection
+ * is on, since filling it in costs more than the rest of a borrow.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A point in time view of the pool
+     */
+    public record Stats(int total, int idle, int active, int waiting,
+                        long borrowed, long created, long validationFailures,
+                        long timeouts, long leaks, long averageWaitMicros) {
+    }
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakThresholdMillis;
+
+    // one permit per connection that may still be borrowed
+    private final Semaphore available;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+    private int total;
+    private boolean closed;
+    // set by warmUp, so a stopped server does not get its connections reopened
+    private boolean keepWarm;
+
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private static final long REFILL_PERIOD_MILLIS = 30_000;
+
+    private static final class Lease {
+        final long borrowedAt = System.nanoTime();
+        // null when leak detection is off
+        final Throwable borrower;
+        volatile boolean reported;
+
+        Lease(Throwable borrower) {
+            this.borrower = borrower;
+        }
+    }
+
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, long leakThresholdMillis) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool size must satisfy 0 <= min <= max and max >= 1");
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.available = new Semaphore(maxSize, true);
+
+        if (leakThresholdMillis > 0 || minSize > 0) {
+            maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-pool-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = leakThresholdMillis > 0 ? Math.max(leakThresholdMillis / 2, 1000) : REFILL_PERIOD_MILLIS;
+            maintenance.scheduleAtFixedRate(this::maintain, period, period, TimeUnit.MILLISECONDS);
+        }
+        else {
+            maintenance = null;
+        }
+    }
+
+    /**
+     * Opens connections until minSize are idle or the pool is full, and keeps them
+     * topped up from then on
+     */
+    public void warmUp() throws SQLException {
+        synchronized (this) {
+            keepWarm = true;
+        }
+        fill();
+    }
+
+    private void fill() throws SQLException {
+        while (true) {
+            // take a permit like a borrower does, so a borrower that has one but has not
+            // opened its connection yet still finds room under maxSize
+            if (!available.tryAcquire()) {
+                return;
+            }
+            try {
+                synchronized (this) {
+                    if (idle.size() >= minSize || !reserveSlot()) {
+                        return;
+                    }
+                }
+                Connection connection = openReserved();
+                boolean keep;
+                synchronized (this) {
+                    keep = !closed;
+                    if (keep) {
+                        idle.push(connection);
+                    }
+                }
+                if (!keep) {
+                    discard(connection);
+                }
+            }
+            finally {
+                available.release();
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to be returned.
+     * Closing the returned connection gives it back to the pool.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!available.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        }
+        waitNanos.addAndGet(System.nanoTime() - start);
+
+        try {
+            Connection physical = takeIdle();
+            while (physical != null && !isUsable(physical)) {
+                validationFailures.incrementAndGet();
+                discard(physical);
+                physical = takeIdle();
+            }
+            if (physical == null) {
+                physical = open();
+            }
+            borrowed.incrementAndGet();
+            return wrap(physical);
+        }
+        catch (SQLException | RuntimeException e) {
+            available.release();
+            throw e;
+        }
+    }
+
+    public Stats stats() {
+        int idleCount;
+        int totalCount;
+        synchronized (this) {
+            idleCount = idle.size();
+            totalCount = total;
+        }
+        long borrowCount = borrowed.get();
+        long averageWait = borrowCount == 0 ? 0 : waitNanos.get() / borrowCount / 1000;
+        return new Stats(totalCount, idleCount, leases.size(), available.getQueueLength(),
+                borrowCount, created.get(), validationFailures.get(), timeouts.get(), leaks.get(), averageWait);
+    }
+
+    /**
+     * Closes every idle connection. The pool stays usable and opens new connections
+     * as they are needed.
+     */
+    public void clearIdle() {
+        Deque<Connection> toClose;
+        synchronized (this) {
+            keepWarm = false;
+            toClose = new ArrayDeque<>(idle);
+            total -= idle.size();
+            idle.clear();
+        }
+        for (Connection connection : toClose) {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops handing out new ones. Connections that
+     * are still borrowed are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        clearIdle();
+        if (maintenance != null) {
+            maintenance.shutdownNow();
+        }
+    }
+
+    private synchronized Connection takeIdle() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        return idle.poll();
+    }
+
+    /**
+     * Counts a connection about to be opened, unless the pool is closed or full. Every
+     * new connection goes through here, so total never passes maxSize.
+     */
+    private synchronized boolean reserveSlot() {
+        if (closed || total >= maxSize) {
+            return false;
+        }
+        total++;
+        return true;
+    }
+
+    private Connection open() throws SQLException {
+        if (!reserveSlot()) {
+            throw new SQLException("Connection pool is full or closed");
+        }
+        return openReserved();
+    }
+
+    private Connection openReserved() throws SQLException {
+        try {
+            Connection connection = factory.open();
+            created.incrementAndGet();
+            return connection;
+        }
+        catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                total--;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+        }
+        catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection connection) {
+        synchronized (this) {
+            total--;
+        }
+        closeQuietly(connection);
+    }
+
+    private void giveBack(Connection physical) {
+        leases.remove(physical);
+        try {
+            // undo anything a caller left behind so the next borrower starts clean
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+        }
+        catch (SQLException e) {
+            discard(physical);
+            available.release();
+            return;
+        }
+
+        boolean keep;
+        synchronized (this) {
+            keep = !closed;
+            if (keep) {
+                idle.push(physical);
+            }
+        }
+        if (!keep) {
+            discard(physical);
+        }
+        available.release();
+    }
+
+    private Connection wrap(Connection physical) {
+        leases.put(physical, new Lease(leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null));
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (!returned) {
+                            returned = true;
+                            giveBack(physical);
+                        }
+                        return null;
+                    }
+                    case "isClosed" -> {
+                        return returned || physical.isClosed();
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "toString" -> {
+                        return "Pooled" + physical;
+                    }
+                    default -> {
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                        try {
+                            return method.invoke(physical, args);
+                        }
+                        catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * Reports leaks and brings the idle connections back up to minSize; runs on the
+     * maintenance thread
+     */
+    void maintain() {
+        if (leakThresholdMillis > 0) {
+            reportLeaks();
+        }
+        synchronized (this) {
+            if (!keepWarm) {
+                return;
+            }
+        }
+        try {
+            fill();
+        }
+        catch (SQLException | RuntimeException e) {
+            // the database may be down; borrowers will see that, so just try again later
+        }
+    }
+
+    private void reportLeaks() {
+        long now = System.nanoTime();
+        for (Lease lease : leases.values()) {
+            if (!lease.reported && TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAt) > leakThresholdMillis) {
+                lease.reported = true;
+                leaks.incrementAndGet();
+                System.err.println("Possible connection leak: held for more than " + leakThresholdMillis + " ms");
+                lease.borrower.printStackTrace();
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        }
+        catch (SQLException ignored) {
+            // already broken, nothing else to do with it
+        }
+    }
+}
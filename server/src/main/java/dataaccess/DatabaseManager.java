@@ -10,6 +10,8 @@ public class DatabaseManager {
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
     private static final String BASE_URL;
+    private static final ConnectionPool POOL;
+    private static final Properties SETTINGS;
 
     /*
      * Load the database information for the db.properties file.
@@ -23,6 +25,7 @@ public class DatabaseManager {
                 }
                 props.load(propStream);
             }
+            SETTINGS = props;
             DATABASE_NAME = props.getProperty("db.name");
             USER = props.getProperty("db.user");
             PASSWORD = props.getProperty("db.password");
@@ -32,11 +35,27 @@ public class DatabaseManager {
             BASE_URL = String.format("jdbc:mysql://%s:%d?serverTimezone=UTC", host, port);
             CONNECTION_URL = String.format("jdbc:mysql://%s:%d/%s?serverTimezone=UTC", host, port, DATABASE_NAME);
 
+            // pool settings are optional; the defaults suit a single server instance
+            POOL = new ConnectionPool(
+                    () -> DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD),
+                    Integer.parseInt(props.getProperty("db.pool.minSize", "2")),
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                    Long.parseLong(props.getProperty("db.pool.borrowTimeoutMillis", "5000")),
+                    Integer.parseInt(props.getProperty("db.pool.validationTimeoutSeconds", "2")),
+                    Long.parseLong(props.getProperty("db.pool.leakDetectionMillis", "30000")));
+
         } catch (Exception ex) {
             throw new RuntimeException("Error loading db.properties: " + ex.getMessage());
         }
     }
 
+    /**
+     * @return an optional setting from db.properties, or defaultValue if it is not set
+     */
+    public static String getSetting(String key, String defaultValue) {
+        return SETTINGS.getProperty(key, defaultValue);
+    }
+
     /**
      * Creates the database if it does not already exist.
      */
@@ -56,19 +75,6 @@ public class DatabaseManager {
 
 
 
-    /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
-     * <br/>
-     * <code>
-     * try (var conn = DbInfo.getConnection(databaseName)) {
-     * // execute SQL statements.
-     * }
-     * </code>
-     */
-
     public static void createTables() throws DataAccessException {
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement()) {
@@ -93,6 +99,8 @@ public class DatabaseManager {
                     blackUsername VARCHAR(256),
                     gameName VARCHAR(256) NOT NULL,
                     gameState TEXT NOT NULL,
+                    snapshotPly INT NOT NULL DEFAULT 0,
+                    gameOver BOOLEAN NOT NULL DEFAULT FALSE,
                     PRIMARY KEY (id),
                     FOREIGN KEY (whiteUsername) REFERENCES users(username) ON DELETE SET NULL,
                     FOREIGN KEY (blackUsername) REFERENCES users(username) ON DELETE SET NULL,
@@ -101,6 +109,28 @@ public class DatabaseManager {
                     ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
                     """);
 
+            // tables made before the move log existed have no snapshotPly column
+            addColumnIfMissing(conn, "games", "snapshotPly", "INT NOT NULL DEFAULT 0");
+            // kept beside gameState so the game list never has to read the board
+            boolean gameOverAdded = addColumnIfMissing(conn, "games", "gameOver", "BOOLEAN NOT NULL DEFAULT FALSE");
+
+            // move log: one row per half-move, replayed on top of the games snapshot
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS game_moves (
+                    gameID INT NOT NULL,
+                    ply INT NOT NULL,
+                    move SMALLINT UNSIGNED NOT NULL,
+                    PRIMARY KEY (gameID, ply),
+                    FOREIGN KEY (gameID) REFERENCES games(id) ON DELETE CASCADE
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+                    """);
+
+            // games that ended before the column existed are worked out from their state,
+            // which may need the move log
+            if (gameOverAdded) {
+                GameDAO.backfillGameOver(conn);
+            }
+
             // auth tokens table
             stmt.execute("""
                     CREATE TABLE IF NOT EXISTS auth_tokens (
@@ -121,14 +151,57 @@ public class DatabaseManager {
 
 
 
+    /**
+     * Returns whether the column had to be added
+     */
+    private static boolean addColumnIfMissing(Connection conn, String table, String column, String definition)
+            throws SQLException {
+        try (ResultSet columns = conn.getMetaData().getColumns(DATABASE_NAME, null, table, column)) {
+            if (columns.next()) {
+                return false;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+        return true;
+    }
+
+    /**
+     * Borrows a connection to the database named in db.properties from the pool.
+     * Connections should be short-lived, and you must close the connection when you
+     * are done with it, which hands it back to the pool. The easiest way to do that
+     * is with a try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     */
     public static Connection getConnection() throws DataAccessException {
         try {
-            return DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+            return POOL.borrow();
         } catch (SQLException e) {
             throw new DataAccessException("Error connecting to database: " + e.getMessage());
         }
     }
 
+    /**
+     * @return current connection pool counters
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return POOL.stats();
+    }
+
+    /**
+     * Closes the idle pooled connections; called when the server stops. The pool
+     * opens new ones if the server is started again.
+     */
+    public static void releaseConnections() {
+        POOL.clearIdle();
+    }
+
 
     public static void clearDatabase() throws DataAccessException {
         try (Connection conn = getConnection();
@@ -136,6 +209,7 @@ public class DatabaseManager {
 
             stmt.execute("SET FOREIGN_KEY_CHECKS = 0;");
             stmt.execute("TRUNCATE TABLE auth_tokens;");
+            stmt.execute("TRUNCATE TABLE game_moves;");
             stmt.execute("TRUNCATE TABLE games;");
             stmt.execute("TRUNCATE TABLE users;");
             stmt.execute("SET FOREIGN_KEY_CHECKS = 1;");
@@ -151,7 +225,8 @@ public class DatabaseManager {
         try {
             createDatabase();
             createTables();
-        } catch (DataAccessException e) {
+            POOL.warmUp();
+        } catch (DataAccessException | SQLException e) {
             System.err.println("Database initialization failed: " + e.getMessage());
             e.printStackTrace();
         }
@@ -1,19 +1,55 @@
 package dataaccess;
 
 import model.GameData;
-import java.util.HashMap;
-import java.util.Map;
+import model.GameSummary;
 import java.util.ArrayList;
 import java.util.List;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
+import chess.ChessBoard;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.PackedMove;
 import java.sql.*;
 import java.util.*;
 
 public class GameDAO {
     private static final Gson gson = new Gson();
 
+    // a move is one small row in game_moves; the full gameState is rewritten this often
+    static final int SNAPSHOT_INTERVAL = 16;
+
+    /**
+     * Which games {@link #listGameSummaries} returns
+     */
+    public enum GameFilter {
+        ALL,
+        // a seat is free and the game is not over
+        OPEN,
+        // the user plays white or black
+        MINE,
+        // both seats taken and not over
+        IN_PROGRESS;
+
+        public boolean matches(GameSummary game, String username) {
+            return switch (this) {
+                case ALL -> true;
+                case OPEN -> game.status() == GameSummary.Status.WAITING;
+                case MINE -> username != null
+                        && (username.equals(game.whiteUsername()) || username.equals(game.blackUsername()));
+                case IN_PROGRESS -> game.status() == GameSummary.Status.IN_PROGRESS;
+            };
+        }
+    }
+
 
     public int createGame(String gameName) throws DataAccessException {
         String sql = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameState) VALUES (?, ?, ?, ?)";
@@ -25,7 +61,7 @@ public class GameDAO {
                 stmt.setNull(1, Types.VARCHAR);
                 stmt.setNull(2, Types.VARCHAR);
                 stmt.setString(3, gameName);
-                stmt.setString(4, gson.toJson(new ChessGame()));
+                stmt.setString(4, GameCodec.toText(new ChessGame()));
 
                 int rowsInserted = stmt.executeUpdate();
                 if (rowsInserted == 0) {
@@ -51,7 +87,7 @@ public class GameDAO {
 
 
     public GameData getGame(int gameID) throws DataAccessException {
-        String sql = "SELECT whiteUsername, blackUsername, gameName, gameState FROM games WHERE id = ?";
+        String sql = "SELECT whiteUsername, blackUsername, gameName, gameState, snapshotPly FROM games WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -65,10 +101,11 @@ public class GameDAO {
 
                 ChessGame gameState;
                 try {
-                    gameState = gson.fromJson(rs.getString("gameState"), ChessGame.class);
-                } catch (JsonSyntaxException e) {
+                    gameState = parseGameState(rs.getString("gameState"));
+                } catch (JsonSyntaxException | IllegalArgumentException e) {
                     throw new DataAccessException("Error parsing game state for game ID " + gameID);
                 }
+                replayMoves(gameID, gameState, loadMoveTail(conn, gameID, rs.getInt("snapshotPly")));
 
                 return new GameData(
                         gameID,
@@ -85,42 +122,84 @@ public class GameDAO {
     }
 
 
+    /**
+     * Reads a copy of the game that no other thread holds, for callers that only look
+     * at it. Every read here builds a new one; {@link CachingGameDAO} decodes one from
+     * the last recorded state instead of sharing its live copy.
+     */
+    public GameData getGameSnapshot(int gameID) throws DataAccessException {
+        return getGame(gameID);
+    }
 
-    public List<GameData> getAllGames() throws DataAccessException {
-        List<GameData> gameList = new ArrayList<>();
-        String sql = "SELECT id, whiteUsername, blackUsername, gameName, gameState FROM games";
+    /**
+     * Changes who sits in one seat, but only if it is still held by expected
+     *
+     * @param expected     the current player, or null if the seat should be free
+     * @param replacement  the new player, or null to free the seat
+     * @return false if the seat held someone else, or the game does not exist
+     */
+    public boolean replacePlayer(int gameID, ChessGame.TeamColor color, String expected, String replacement)
+            throws DataAccessException {
+        String column = color == ChessGame.TeamColor.WHITE ? "whiteUsername" : "blackUsername";
+        String sql = "UPDATE games SET " + column + " = ? WHERE id = ? AND " + column + " <=> ?";
 
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, replacement);
+            stmt.setInt(2, gameID);
+            stmt.setString(3, expected);
+            return stmt.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating players: " + e.getMessage());
+        }
+    }
 
-            while (rs.next()) {
-                //game state valid
-                ChessGame gameState;
-                try {
-                    gameState = gson.fromJson(rs.getString("gameState"), ChessGame.class);
-                } catch (JsonSyntaxException e) {
-                    throw new DataAccessException("Error parsing game state for game ID " + rs.getInt("id"));
-                }
+    /**
+     * Lists games without reading their boards, in gameID order
+     *
+     * @param username     the user MINE refers to
+     * @param afterGameID  only games with a greater ID; 0 starts from the beginning
+     * @param limit        most games returned
+     */
+    public List<GameSummary> listGameSummaries(GameFilter filter, String username, int afterGameID, int limit)
+            throws DataAccessException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, whiteUsername, blackUsername, gameName, gameOver FROM games WHERE id > ?");
+        switch (filter) {
+            case OPEN -> sql.append(" AND NOT gameOver AND (whiteUsername IS NULL OR blackUsername IS NULL)");
+            case MINE -> sql.append(" AND (whiteUsername = ? OR blackUsername = ?)");
+            case IN_PROGRESS -> sql.append(" AND NOT gameOver AND whiteUsername IS NOT NULL AND blackUsername IS NOT NULL");
+            case ALL -> { }
+        }
+        sql.append(" ORDER BY id LIMIT ?");
 
-                gameList.add(new GameData(
-                        rs.getInt("id"),
-                        rs.getString("whiteUsername"),
-                        rs.getString("blackUsername"),
-                        rs.getString("gameName"),
-                        gameState
-                ));
+        List<GameSummary> games = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            int param = 1;
+            stmt.setInt(param++, afterGameID);
+            if (filter == GameFilter.MINE) {
+                stmt.setString(param++, username);
+                stmt.setString(param++, username);
+            }
+            stmt.setInt(param, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String white = rs.getString("whiteUsername");
+                    String black = rs.getString("blackUsername");
+                    games.add(new GameSummary(rs.getInt("id"), white, black, rs.getString("gameName"),
+                            GameSummary.statusOf(white, black, rs.getBoolean("gameOver"))));
+                }
             }
         } catch (SQLException e) {
-            throw new DataAccessException("Error retrieving all games: " + e.getMessage());
+            throw new DataAccessException("Error listing games: " + e.getMessage());
         }
-
-        return gameList;
+        return games;
     }
 
-
     public void updateGame(int gameID, GameData updatedGame) throws DataAccessException {
-        String sql = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = ? WHERE id = ?";
+        String sql = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, gameState = ?, snapshotPly = ?, gameOver = ? WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -128,8 +207,10 @@ public class GameDAO {
             stmt.setString(1, updatedGame.whiteUsername());
             stmt.setString(2, updatedGame.blackUsername());
             stmt.setString(3, updatedGame.gameName());
-            stmt.setString(4, gson.toJson(updatedGame.game()));
-            stmt.setInt(5, gameID);
+            stmt.setString(4, GameCodec.toText(updatedGame.game()));
+            stmt.setInt(5, updatedGame.game().getPly());
+            stmt.setBoolean(6, updatedGame.game().getGameOver());
+            stmt.setInt(7, gameID);
 
             int rowsUpdated = stmt.executeUpdate();
             if (rowsUpdated == 0) {
@@ -140,6 +221,172 @@ public class GameDAO {
         }
     }
 
+    /**
+     * A move as stored in game_moves: its ply number and its {@link PackedMove} form
+     */
+    public record LoggedMove(int ply, int move) {
+    }
+
+    /**
+     * Records a move that has just been made on game. Only the move itself is written,
+     * except every SNAPSHOT_INTERVAL plies and when the game ends, when the full game
+     * state is stored as well so loading never has to replay a long tail.
+     *
+     * @param game the game after move was made on it
+     */
+    public void appendMove(int gameID, ChessGame game, ChessMove move) throws DataAccessException {
+        boolean snapshotDue = game.getPly() % SNAPSHOT_INTERVAL == 0 || game.getGameOver();
+        appendMoves(gameID, List.of(new LoggedMove(game.getPly(), PackedMove.fromChessMove(move))),
+                snapshotDue ? game : null);
+    }
+
+    /**
+     * Writes moves to the log in one batch, and the snapshot in the same transaction
+     *
+     * @param snapshot the game as of the last of moves, or null to only log the moves
+     */
+    public void appendMoves(int gameID, List<LoggedMove> moves, ChessGame snapshot) throws DataAccessException {
+        String insertSql = "INSERT INTO game_moves (gameID, ply, move) VALUES (?, ?, ?)";
+        String snapshotSql = "UPDATE games SET gameState = ?, snapshotPly = ?, gameOver = ? WHERE id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+
+            if (!moves.isEmpty()) {
+                try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                    for (LoggedMove move : moves) {
+                        stmt.setInt(1, gameID);
+                        stmt.setInt(2, move.ply());
+                        stmt.setInt(3, move.move());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            if (snapshot != null) {
+                try (PreparedStatement stmt = conn.prepareStatement(snapshotSql)) {
+                    stmt.setString(1, GameCodec.toText(snapshot));
+                    stmt.setInt(2, snapshot.getPly());
+                    stmt.setBoolean(3, snapshot.getGameOver());
+                    stmt.setInt(4, gameID);
+                    if (stmt.executeUpdate() == 0) {
+                        throw new DataAccessException("Update failed: No rows updated for game ID " + gameID);
+                    }
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error recording move: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the full state of a game changed other than by a move, such as a resignation
+     */
+    public void saveGameState(int gameID, ChessGame game) throws DataAccessException {
+        appendMoves(gameID, List.of(), game);
+    }
+
+    /**
+     * Sets gameOver on every finished game, for tables that just gained the column.
+     * A row that no longer parses or replays is left as not over; reading it fails
+     * the same way later.
+     */
+    static void backfillGameOver(Connection conn) throws SQLException {
+        List<Integer> finished = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT id, gameState, snapshotPly FROM games");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int gameID = rs.getInt("id");
+                try {
+                    ChessGame game = parseGameState(rs.getString("gameState"));
+                    replayMoves(gameID, game, loadMoveTail(conn, gameID, rs.getInt("snapshotPly")));
+                    if (game.getGameOver()) {
+                        finished.add(gameID);
+                    }
+                } catch (JsonSyntaxException | IllegalArgumentException | DataAccessException e) {
+                    System.err.println("Could not read game " + gameID + " to set gameOver: " + e.getMessage());
+                }
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE games SET gameOver = TRUE WHERE id = ?")) {
+            for (int gameID : finished) {
+                stmt.setInt(1, gameID);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static List<Integer> loadMoveTail(Connection conn, int gameID, int snapshotPly) throws SQLException {
+        String sql = "SELECT move FROM game_moves WHERE gameID = ? AND ply > ? ORDER BY ply";
+        List<Integer> moves = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, gameID);
+            stmt.setInt(2, snapshotPly);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    moves.add(rs.getInt("move"));
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Plays the logged moves made after the snapshot on top of it
+     */
+    static void replayMoves(int gameID, ChessGame game, List<Integer> moves) throws DataAccessException {
+        for (int move : moves) {
+            try {
+                game.makeMove(PackedMove.toChessMove(move));
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Move log for game ID " + gameID + " does not replay at ply "
+                        + (game.getPly() + 1) + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a stored game state. New rows hold {@link GameCodec#toText} output; older
+     * rows hold the game as Gson JSON, which always starts with a brace.
+     */
+    static ChessGame parseGameState(String text) {
+        if (!text.startsWith("{")) {
+            return GameCodec.fromText(text);
+        }
+        return parseLegacyJson(text);
+    }
+
+    /**
+     * Rows written before the bitboard board kept the pieces in an 8x8 "squares"
+     * grid, so those are rebuilt square by square.
+     */
+    private static ChessGame parseLegacyJson(String json) {
+        JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+        ChessGame game = gson.fromJson(root, ChessGame.class);
+
+        JsonObject board = root.getAsJsonObject("board");
+        if (board != null && board.has("squares")) {
+            ChessBoard legacyBoard = new ChessBoard();
+            JsonArray rows = board.getAsJsonArray("squares");
+            for (int row = 0; row < rows.size(); row++) {
+                JsonArray cols = rows.get(row).getAsJsonArray();
+                for (int col = 0; col < cols.size(); col++) {
+                    JsonElement cell = cols.get(col);
+                    if (!cell.isJsonNull()) {
+                        legacyBoard.addPiece(ChessPosition.of(row + 1, col + 1), gson.fromJson(cell, ChessPiece.class));
+                    }
+                }
+            }
+            game.setBoard(legacyBoard);
+        }
+        return game;
+    }
+
     public void clear() throws DataAccessException {
         String sql = "DELETE FROM games";
 
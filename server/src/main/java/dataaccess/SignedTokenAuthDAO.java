@@ -0,0 +1,153 @@
+package dataaccess;
+
+import model.AuthData;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link AuthDAO} that issues HMAC-signed tokens instead of storing them.
+ * <p>
+ * A token is {@code base64url(username).expiresAtMillis.generation.base64url(HMAC-SHA256)},
+ * so checking one needs no database. {@link #deleteAuth} puts the token on an in-memory
+ * revocation list until it would have expired anyway, and {@link #clear} moves to the
+ * next generation, which invalidates every token issued so far while keeping the
+ * configured key. Neither the revocation list nor the generation is shared between
+ * server instances or kept across restarts.
+ */
+public class SignedTokenAuthDAO extends AuthDAO {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final long ttlMillis;
+    private final Signer signer;
+    // signed into every token; tokens from an earlier generation are no longer valid
+    private volatile long generation;
+    // revoked token -> when it expires and can be forgotten
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // Mac is not thread safe, so each thread keeps its own
+    private static final class Signer {
+        final ThreadLocal<Mac> mac;
+
+        Signer(byte[] key) {
+            this.mac = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac m = Mac.getInstance(ALGORITHM);
+                    m.init(new SecretKeySpec(key, ALGORITHM));
+                    return m;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException(ALGORITHM + " is not available", e);
+                }
+            });
+        }
+
+        byte[] sign(String payload) {
+            return mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Signs with a random key, so tokens do not survive a restart
+     */
+    public SignedTokenAuthDAO(long ttlMillis) {
+        this(randomKey(), ttlMillis);
+    }
+
+    /**
+     * @param key        the HMAC key, at least 32 bytes
+     * @param ttlMillis  how long an issued token stays valid
+     */
+    public SignedTokenAuthDAO(byte[] key, long ttlMillis) {
+        if (key.length < 32) {
+            throw new IllegalArgumentException("Signing key must be at least 32 bytes");
+        }
+        this.signer = new Signer(key.clone());
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    public AuthData createAuth(String username) {
+        String payload = ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8))
+                + "." + (System.currentTimeMillis() + ttlMillis) + "." + generation;
+        String token = payload + "." + ENCODER.encodeToString(signer.sign(payload));
+        return new AuthData(token, username);
+    }
+
+    /**
+     * Signed tokens are issued by {@link #createAuth(String)}; there is nothing to store
+     */
+    @Override
+    public void createAuth(String authToken, String username) throws DataAccessException {
+        throw new DataAccessException("Signed tokens cannot be stored");
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        if (authToken == null) {
+            return null;
+        }
+        String[] parts = authToken.split("\\.");
+        if (parts.length != 4) {
+            return null;
+        }
+
+        try {
+            String payload = parts[0] + "." + parts[1] + "." + parts[2];
+            if (!MessageDigest.isEqual(signer.sign(payload), DECODER.decode(parts[3]))) {
+                return null;
+            }
+            if (Long.parseLong(parts[2]) != generation) {
+                return null;
+            }
+            if (Long.parseLong(parts[1]) <= System.currentTimeMillis() || revoked.containsKey(authToken)) {
+                return null;
+            }
+            return new AuthData(authToken, new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            // bad Base64 or expiry; NumberFormatException is one of these
+            return null;
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        String[] parts = authToken.split("\\.");
+        try {
+            revoked.put(authToken, parts.length == 4 ? Long.parseLong(parts[1]) : now + ttlMillis);
+        } catch (NumberFormatException e) {
+            revoked.put(authToken, now + ttlMillis);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        generation++;
+        revoked.clear();
+    }
+
+    /**
+     * @return how many tokens are on the revocation list
+     */
+    public int revokedCount() {
+        return revoked.size();
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
@@ -9,12 +9,19 @@ import java.sql.*;
 public class UserDAO {
 
     public void addUser(UserData user) throws DataAccessException {
+        addHashedUser(new UserData(user.username(), BCrypt.hashpw(user.password(), BCrypt.gensalt()), user.email()));
+    }
+
+    /**
+     * Stores a user whose password field already holds the BCrypt hash
+     */
+    public void addHashedUser(UserData user) throws DataAccessException {
         String sql = "INSERT INTO users (username, password_hash, email) VALUES (?, ?, ?)";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            String hashedPassword = BCrypt.hashpw(user.password(), BCrypt.gensalt());
+            String hashedPassword = user.password();
 
             stmt.setString(1, user.username());
             stmt.setString(2, hashedPassword);
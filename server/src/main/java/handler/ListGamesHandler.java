@@ -4,13 +4,10 @@ import com.google.gson.Gson;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
-import model.AuthData;
-import model.GameData;
 import service.GameService;
 import spark.Request;
 import spark.Response;
 import spark.Route;
-import java.util.List;
 import java.util.Map;
 
 public class ListGamesHandler implements Route {
@@ -30,10 +27,28 @@ public class ListGamesHandler implements Route {
             return gson.toJson(Map.of("message", "Error: Unauthorized"));
         }
 
+        GameDAO.GameFilter filter;
+        int after;
+        int limit;
         try {
-            List<GameData> games = gameService.listGames(authToken);
+            filter = parseFilter(req.queryParams("filter"));
+            after = parseInt(req.queryParams("after"), 0);
+            // larger limits are cut down; nextCursor tells the client there is more
+            limit = Math.min(parseInt(req.queryParams("limit"), GameService.MAX_PAGE_SIZE), GameService.MAX_PAGE_SIZE);
+            if (after < 0 || limit < 1) {
+                throw new IllegalArgumentException();
+            }
+        }
+        catch (IllegalArgumentException e) {
+            res.status(400);
+            return gson.toJson(Map.of("message", "Error: Bad Request"));
+        }
+
+        try {
+            GameService.GamePage page = gameService.listGameSummaries(authToken, filter, after, limit);
             res.status(200);
-            return gson.toJson(Map.of("games", games));
+            // Gson leaves out a null nextCursor
+            return gson.toJson(page);
         }
         catch (IllegalArgumentException e) {
             if (e.getMessage().contains("Error: Unauthorized")) {
@@ -47,4 +62,14 @@ public class ListGamesHandler implements Route {
             throw new RuntimeException(e);
         }
     }
+
+    // filter=open|mine|in_progress, or nothing for every game
+    private static GameDAO.GameFilter parseFilter(String value) {
+        return value == null || value.isEmpty() ? GameDAO.GameFilter.ALL
+                : GameDAO.GameFilter.valueOf(value.toUpperCase());
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
 }
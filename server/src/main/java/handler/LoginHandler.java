@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import model.AuthData;
 import model.UserData;
+import service.PasswordHasher;
 import service.UserService;
 import spark.Request;
 import spark.Response;
@@ -25,6 +26,10 @@ public class LoginHandler implements Route {
             AuthData auth = userService.login(user.username(), user.password());
             res.status(200);
             return gson.toJson(auth);
+        } catch (PasswordHasher.BusyException e) {
+            res.status(503);
+            res.header("Retry-After", "1");
+            return gson.toJson(Map.of("message", e.getMessage()));
         } catch (IllegalArgumentException e) {
             res.status(401);
             return gson.toJson(Map.of("message", e.getMessage()));
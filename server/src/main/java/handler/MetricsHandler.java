@@ -0,0 +1,59 @@
+package handler;
+
+import com.google.gson.Gson;
+import dataaccess.CachingAuthDAO;
+import dataaccess.ConnectionPool;
+import service.PasswordHasher;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reports the server's load counters as JSON: the database pool, outbound WebSocket
+ * queues, the token cache and the password hashing threads. Each call reads the
+ * current values, so a monitor can poll it and work out rates from the totals.
+ */
+public class MetricsHandler implements Route {
+
+    private final Supplier<ConnectionPool.Stats> poolStats;
+    private final WebSocketHandler webSocketHandler;
+    private final CachingAuthDAO authDAO;
+    private final PasswordHasher passwordHasher;
+    private final Gson gson = new Gson();
+
+    /**
+     * @param poolStats  reads the database pool counters, normally DatabaseManager::getPoolStats
+     */
+    public MetricsHandler(Supplier<ConnectionPool.Stats> poolStats, WebSocketHandler webSocketHandler,
+                          CachingAuthDAO authDAO, PasswordHasher passwordHasher) {
+        this.poolStats = poolStats;
+        this.webSocketHandler = webSocketHandler;
+        this.authDAO = authDAO;
+        this.passwordHasher = passwordHasher;
+    }
+
+    @Override
+    public Object handle(Request req, Response res) {
+        CachingAuthDAO.Stats auth = authDAO.stats();
+        Map<String, Object> authCache = new LinkedHashMap<>();
+        authCache.put("hits", auth.hits());
+        authCache.put("negativeHits", auth.negativeHits());
+        authCache.put("misses", auth.misses());
+        authCache.put("evictions", auth.evictions());
+        authCache.put("size", auth.size());
+        authCache.put("hitRate", auth.hitRate());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("databasePool", poolStats.get());
+        metrics.put("webSocket", webSocketHandler.getSendStats());
+        metrics.put("authCache", authCache);
+        metrics.put("passwordHasher", passwordHasher.stats());
+
+        res.status(200);
+        return gson.toJson(metrics);
+    }
+}
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import model.UserData;
 import model.AuthData;
+import service.PasswordHasher;
 import service.UserService;
 import spark.Request;
 import spark.Response;
@@ -33,6 +34,11 @@ public class RegisterHandler implements Route {
             res.status(200);
             return gson.toJson(auth);
         }
+        catch (PasswordHasher.BusyException e) {
+            res.status(503);
+            res.header("Retry-After", "1");
+            return gson.toJson(Map.of("message", e.getMessage()));
+        }
         catch (RuntimeException e) {
             res.status(403);
             return gson.toJson(Map.of("message", "Error: Username Already Taken"));
@@ -10,34 +10,91 @@ import websocket.messages.ServerMessage;
 import com.google.gson.Gson;
 import dataaccess.GameDAO;
 import websocket.ConnectionManager;
+import websocket.GameCommandExecutor;
+import websocket.SendMetrics;
+import websocket.messages.Connection;
+import websocket.messages.PreparedFrame;
 import dataaccess.DataAccessException;
 
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 
 
 
 @WebSocket
-public class WebSocketHandler {
+public class WebSocketHandler implements CachingAuthDAO.RevocationListener {
 
     private static final Gson gson = new Gson();
 
-    private static final Map<Session, String> sessionUsernameMap = new ConcurrentHashMap<>();
-    private static final GameDAO gameDAO = new GameDAO();
-    private static final AuthDAO authDAO = new AuthDAO();
     private static final ConnectionManager connectionManager = new ConnectionManager();
 
+    // one-off replies to sessions with no connection; nothing to retry if one fails
+    private static final WriteCallback UNREGISTERED_SEND = new WriteCallback() {
+        @Override
+        public void writeSuccess() {
+        }
+
+        @Override
+        public void writeFailed(Throwable cause) {
+            System.err.println("Could not reply to WebSocket session: " + cause.getMessage());
+        }
+    };
+
+    private final GameDAO gameDAO;
+    private final AuthDAO authDAO;
+    // how long a session's token is trusted before a command checks it again
+    private final long revalidateMillis;
+    // commands for one game run in order, one at a time
+    private final GameCommandExecutor commandExecutor = new GameCommandExecutor();
+
     private Session session;
 
+    public static final long DEFAULT_REVALIDATE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    public WebSocketHandler(GameDAO gameDAO) {
+        this(gameDAO, new AuthDAO(), DEFAULT_REVALIDATE_MILLIS);
+    }
+
+    public WebSocketHandler(GameDAO gameDAO, AuthDAO authDAO, long revalidateMillis) {
+        this.gameDAO = gameDAO;
+        this.authDAO = authDAO;
+        this.revalidateMillis = revalidateMillis;
+    }
+
+    /**
+     * @return the outbound queue counters for every open session
+     */
+    public SendMetrics.Snapshot getSendStats() {
+        return connectionManager.getSendStats();
+    }
+
+    /**
+     * Finishes the commands already queued and stops the worker threads
+     */
+    public void shutdown() {
+        commandExecutor.shutdown();
+    }
+
+
+    @Override
+    public void revoked(String authToken) {
+        connectionManager.revoke(authToken);
+    }
+
+    @Override
+    public void revokedAll() {
+        connectionManager.revokeAll();
+    }
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
@@ -47,16 +104,26 @@ public class WebSocketHandler {
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
         System.out.println("Closed connection: " + session.getRemoteAddress());
-        String username = sessionUsernameMap.remove(session);
-        if (username != null) {
-            connectionManager.remove(username);
-        }
+        connectionManager.remove(session);
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws IOException {
         try {
             UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
+            commandExecutor.submit(command.getGameID(), () -> handleCommand(session, command));
+        }
+        catch (RejectedExecutionException e) {
+            sendError(session, "Error: Server is shutting down");
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            sendError(session, "Error: Invalid WebSocket message");
+        }
+    }
+
+    private void handleCommand(Session session, UserGameCommand command) {
+        try {
             switch (command.getCommandType()) {
                 case CONNECT -> handleConnect(session, command);
                 case MAKE_MOVE -> handleMakeMove(session, command);
@@ -68,7 +135,12 @@ public class WebSocketHandler {
         }
         catch (Exception e) {
             e.printStackTrace();
-            sendError(session, "Error: Invalid WebSocket message");
+            try {
+                sendError(session, "Error: Invalid WebSocket message");
+            }
+            catch (IOException sendFailure) {
+                System.err.println("Could not send error: " + sendFailure.getMessage());
+            }
         }
     }
 
@@ -89,12 +161,12 @@ public class WebSocketHandler {
             }
 
             String username = auth.username();
-            connectionManager.add(username, session, command.getGameID());
-            sessionUsernameMap.put(session, username);
+            connectionManager.add(username, session, command.getGameID(), command.wantsMoveUpdates())
+                    .markVerified(command.getAuthToken());
 
             ServerMessage loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
             loadGame.setGame(gameData.game());
-            session.getRemote().sendString(gson.toJson(loadGame));
+            sendTo(session, loadGame);
 
             String notificationMsg;
             if (username.equals(gameData.whiteUsername())) {
@@ -108,7 +180,7 @@ public class WebSocketHandler {
             }
 
             ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, notificationMsg);
-            connectionManager.broadcastToGameExcept(username, command.getGameID(), notification);
+            connectionManager.broadcastToGameExcept(session, command.getGameID(), notification);
 
         }
         catch (DataAccessException e) {
@@ -122,7 +194,7 @@ public class WebSocketHandler {
     private void handleMakeMove(Session session, UserGameCommand command) throws IOException {
         try {
             System.out.println("[handleMakeMove] " + gson.toJson(command));
-            AuthData auth = authDAO.getAuth(command.getAuthToken());
+            AuthData auth = authenticate(session, command);
             if (auth == null) {
                 sendError(session, "Error: Invalid authToken");
                 return;
@@ -150,15 +222,7 @@ public class WebSocketHandler {
                 return;
             }
 
-            ChessGame cloneGame = originalGame.deepCopy();
-            try {
-                cloneGame.makeMove(move);
-            }
-            catch (InvalidMoveException e) {
-                sendError(session, e.getMessage());
-                return;
-            }
-
+            // makeMove validates before touching the board, so a rejected move leaves the game as it was
             try {
                 originalGame.makeMove(move);
             }
@@ -167,44 +231,49 @@ public class WebSocketHandler {
                 return;
             }
 
-            gameDAO.updateGame(gameData.gameID(), new GameData(
-                    gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), originalGame
-            ));
+            gameDAO.appendMove(gameData.gameID(), originalGame, move);
+
+            // everything this move tells a session leaves in one write
+            ConnectionManager.Broadcast broadcast = connectionManager.broadcast(command.getGameID());
 
             ServerMessage loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
             loadGame.setGame(originalGame);
-            connectionManager.broadcastToGame(command.getGameID(), loadGame);
+            ServerMessage moveMade = new ServerMessage(move, originalGame.getStatus(), originalGame.getPly());
+            broadcast.move(loadGame, moveMade);
 
             String moveDesc = auth.username() + " moved from " + move.getStartPosition() + " to " + move.getEndPosition();
             ServerMessage moveNotification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, moveDesc);
-            connectionManager.broadcastToGameExcept(auth.username(), command.getGameID(), moveNotification);
+            broadcast.toAllExcept(session, moveNotification);
 
             ChessGame.TeamColor opponent = (moverColor == ChessGame.TeamColor.WHITE)
                     ? ChessGame.TeamColor.BLACK
                     : ChessGame.TeamColor.WHITE;
 
-            if (originalGame.getGameOver()) {
-                if (originalGame.isInCheck(opponent)) {
+            // makeMove already worked the status out; reading it does not search again
+            ChessGame.GameStatus status = originalGame.getStatus();
+            if (status == ChessGame.GameStatus.CHECKMATE || status == ChessGame.GameStatus.STALEMATE) {
+                if (status == ChessGame.GameStatus.CHECKMATE) {
                     ServerMessage checkmateMsg = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                             "Checkmate! " + opponent + " loses!");
-                    connectionManager.broadcastToGame(command.getGameID(), checkmateMsg);
+                    broadcast.toAll(checkmateMsg);
                 }
                 else {
                     ServerMessage stalemateMsg = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                             "Stalemate!");
-                    connectionManager.broadcastToGame(command.getGameID(), stalemateMsg);
+                    broadcast.toAll(stalemateMsg);
                 }
 
                 ServerMessage gameOverMsg = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                         "Game Over!");
-                connectionManager.broadcastToGame(command.getGameID(), gameOverMsg);
+                broadcast.toAll(gameOverMsg);
 
             }
-            else if (originalGame.isInCheck(originalGame.getTeamTurn())) {
+            else if (status == ChessGame.GameStatus.CHECK) {
                 ServerMessage checkMsg = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                         "Check! " + originalGame.getTeamTurn() + " is in check!");
-                connectionManager.broadcastToGame(command.getGameID(), checkMsg);
+                broadcast.toAll(checkMsg);
             }
+            broadcast.send();
 
         }
         catch (DataAccessException e) {
@@ -222,32 +291,23 @@ public class WebSocketHandler {
         //stuff
 
         try {
-            String username = sessionUsernameMap.remove(session);
-            if (username == null) {
+            Connection connection = connectionManager.remove(session);
+            if (connection == null) {
                 return;
             }
-
-            connectionManager.remove(username);
+            String username = connection.username;
 
             GameData gameData = gameDAO.getGame(command.getGameID());
             if (gameData == null) {
                 return;
             }
 
-            boolean updated = false;
-            ChessGame game = gameData.game();
-
+            // a join from the HTTP side may land at any time, so only free the seat if it is still ours
             if (username.equals(gameData.whiteUsername())) {
-                gameData = new GameData(gameData.gameID(), null, gameData.blackUsername(), gameData.gameName(), game);
-                updated = true;
+                gameDAO.replacePlayer(gameData.gameID(), ChessGame.TeamColor.WHITE, username, null);
             }
             else if (username.equals(gameData.blackUsername())) {
-                gameData = new GameData(gameData.gameID(), gameData.whiteUsername(), null, gameData.gameName(), game);
-                updated = true;
-            }
-
-            if (updated) {
-                gameDAO.updateGame(gameData.gameID(), gameData);
+                gameDAO.replacePlayer(gameData.gameID(), ChessGame.TeamColor.BLACK, username, null);
             }
 
             ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
@@ -265,7 +325,7 @@ public class WebSocketHandler {
         //stuff
         try {
             System.out.println("[handleResign] Resign request received.");
-            AuthData auth = authDAO.getAuth(command.getAuthToken());
+            AuthData auth = authenticate(session, command);
             if (auth == null) {
                 sendError(session, "Error: Invalid authToken");
                 return;
@@ -290,11 +350,9 @@ public class WebSocketHandler {
                 return;
             }
 
-            game.setGameOver(true);
+            game.resign();
 
-            gameDAO.updateGame(gameData.gameID(), new GameData(
-                    gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), game
-            ));
+            gameDAO.saveGameState(gameData.gameID(), game);
 
             ServerMessage notification = new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                     username + " resigned");
@@ -310,7 +368,7 @@ public class WebSocketHandler {
     private void handleDisplayMoves(Session session, UserGameCommand command) throws IOException {
         // display moves
         try {
-            AuthData auth = authDAO.getAuth(command.getAuthToken());
+            AuthData auth = authenticate(session, command);
             if (auth == null) {
                 sendError(session, "Error: Invalid authToken");
                 return;
@@ -333,7 +391,7 @@ public class WebSocketHandler {
 
             ServerMessage movesMessage = new ServerMessage(ServerMessage.ServerMessageType.MOVES);
             movesMessage.setMoves(flippedMoves);
-            session.getRemote().sendString(gson.toJson(movesMessage));
+            sendTo(session, movesMessage);
 
             if (flippedMoves.isEmpty()) {
                 System.out.println("[Game] >>> No legal moves available.");
@@ -363,7 +421,7 @@ public class WebSocketHandler {
     private ChessPosition flipPosition(ChessPosition pos) {
         int flippedRow = 8 - pos.getRow();
         int col = pos.getColumn() + 1;
-        return new ChessPosition(flippedRow, col);
+        return ChessPosition.of(flippedRow, col);
     }
 
 
@@ -372,7 +430,7 @@ public class WebSocketHandler {
     private void handleRedraw(Session session, UserGameCommand command) throws IOException {
         // redraw board
         try {
-            AuthData auth = authDAO.getAuth(command.getAuthToken());
+            AuthData auth = authenticate(session, command);
             if (auth == null) {
                 sendError(session, "Error: Invalid authToken");
                 return;
@@ -387,7 +445,7 @@ public class WebSocketHandler {
             ChessGame game = gameData.game();
             ServerMessage loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
             loadGame.setGame(game);
-            session.getRemote().sendString(gson.toJson(loadGame));
+            sendTo(session, loadGame);
 
         }
         catch (DataAccessException e) {
@@ -395,9 +453,46 @@ public class WebSocketHandler {
         }
     }
 
+    /**
+     * Checks a command's token. A session bound to this game at CONNECT with the same
+     * token is trusted without asking the database until the token is revoked or the
+     * revalidation interval runs out.
+     *
+     * @return the user, or null if the token is not valid
+     */
+    private AuthData authenticate(Session session, UserGameCommand command) throws DataAccessException {
+        Connection connection = connectionManager.getConnection(session);
+        boolean bound = connection != null && connection.gameID == command.getGameID();
+        if (bound && connection.isVerified(command.getAuthToken(), revalidateMillis)) {
+            return new AuthData(command.getAuthToken(), connection.username);
+        }
+
+        AuthData auth = authDAO.getAuth(command.getAuthToken());
+        if (bound && auth != null && auth.username().equals(connection.username)) {
+            connection.markVerified(command.getAuthToken());
+        }
+        return auth;
+    }
+
     private void sendError(Session session, String errorMessage) throws IOException {
         ServerMessage error = new ServerMessage(ServerMessage.ServerMessageType.ERROR, errorMessage);
-        session.getRemote().sendString(gson.toJson(error));
+        sendTo(session, error);
+    }
+
+    /**
+     * Sends to one session. A registered session goes through its connection's queue so
+     * its frames stay in order with the broadcasts. Anything else is still written
+     * without blocking, since a connection removed a moment ago may have frames in
+     * flight and blocking and non-blocking writes must not be mixed on one session.
+     */
+    private void sendTo(Session session, ServerMessage message) throws IOException {
+        Connection connection = connectionManager.getConnection(session);
+        if (connection == null) {
+            session.getRemote().sendString(gson.toJson(message), UNREGISTERED_SEND);
+        }
+        else {
+            connection.send(PreparedFrame.of(message));
+        }
     }
 
     private String positionToString(ChessPosition pos) {
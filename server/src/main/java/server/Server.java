@@ -7,12 +7,19 @@ import dataaccess.*;
 import com.google.gson.Gson;
 import handler.WebSocketHandler;
 
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
 
 // check server
 
 public class Server {
 
     private int assignedPort;
+    private CachingGameDAO gameDAO;
+    private CachingAuthDAO authDAO;
+    private PasswordHasher passwordHasher;
+    private WebSocketHandler webSocketHandler;
 
     public int run(int desiredPort) {
 
@@ -20,20 +27,28 @@ public class Server {
 
         Spark.port(desiredPort);
 
-        Spark.webSocket("/ws", WebSocketHandler.class);
-
-        Spark.staticFiles.location("web");
+        // DAOs; games are cached and written behind, tokens are cached, both shared by
+        // HTTP and WebSocket so a logout or a move is seen by both at once
+        UserDAO userDAO = new UserDAO();
+        authDAO = new CachingAuthDAO(tokenStore());
+        gameDAO = new CachingGameDAO();
 
+        webSocketHandler = new WebSocketHandler(gameDAO, authDAO, WebSocketHandler.DEFAULT_REVALIDATE_MILLIS);
+        // a logout stops the user's open sessions trusting the token
+        authDAO.addRevocationListener(webSocketHandler);
+        Spark.webSocket("/ws", webSocketHandler);
 
+        Spark.staticFiles.location("web");
 
-        //This line initializes the server and can be removed once you have a functioning endpoint 
-        // DAOs
-        UserDAO userDAO = new UserDAO();
-        AuthDAO authDAO = new AuthDAO();
-        GameDAO gameDAO = new GameDAO();
 
         // services
-        UserService userService = new UserService(userDAO, authDAO);
+        // BCrypt gets its own bounded threads; auth.bcrypt.* in db.properties tunes them
+        passwordHasher = new PasswordHasher(
+                Integer.parseInt(DatabaseManager.getSetting("auth.bcrypt.cost", String.valueOf(PasswordHasher.DEFAULT_COST))),
+                Integer.parseInt(DatabaseManager.getSetting("auth.bcrypt.threads",
+                        String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)))),
+                Integer.parseInt(DatabaseManager.getSetting("auth.bcrypt.queueLimit", "64")));
+        UserService userService = new UserService(userDAO, authDAO, passwordHasher);
         GameService gameService = new GameService(gameDAO, authDAO);
 
         // handler
@@ -44,10 +59,15 @@ public class Server {
         Spark.post("/game", new CreateGameHandler(gameService)); // Create game
         Spark.put("/game", new JoinGameHandler(gameService)); // Join game
         Spark.get("/game/state", new GameStateHandler(gameService)); // return game state
+        Spark.get("/metrics", new MetricsHandler(
+                DatabaseManager::getPoolStats, webSocketHandler, authDAO, passwordHasher)); // load counters
 
 
         Spark.delete("/db", (req, res) -> {
+            gameDAO.discardAll();
             DatabaseManager.clearDatabase();
+            // also forgets cached tokens, and in signed mode invalidates every issued token
+            authDAO.clear();
             res.status(200);
             return new Gson().toJson(new SuccessResponse("Database cleared successfully."));
         });
@@ -63,9 +83,46 @@ public class Server {
         return assignedPort;
     }
 
+    /**
+     * auth.tokenMode in db.properties picks how tokens work: "database" (the default)
+     * keeps them in auth_tokens, "signed" issues HMAC-signed tokens checked without the
+     * database, lasting auth.tokenTtlMinutes and signed with the Base64 auth.signingKey,
+     * or a random key if none is set
+     */
+    private static AuthDAO tokenStore() {
+        String mode = DatabaseManager.getSetting("auth.tokenMode", "database");
+        switch (mode) {
+            case "database":
+                return new AuthDAO();
+            case "signed":
+                long ttl = TimeUnit.MINUTES.toMillis(
+                        Long.parseLong(DatabaseManager.getSetting("auth.tokenTtlMinutes", "720")));
+                String key = DatabaseManager.getSetting("auth.signingKey", null);
+                return key == null
+                        ? new SignedTokenAuthDAO(ttl)
+                        : new SignedTokenAuthDAO(Base64.getDecoder().decode(key), ttl);
+            default:
+                throw new IllegalArgumentException("Unknown auth.tokenMode: " + mode);
+        }
+    }
+
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (webSocketHandler != null) {
+            webSocketHandler.shutdown();
+        }
+        if (passwordHasher != null) {
+            passwordHasher.close();
+        }
+        if (gameDAO != null) {
+            try {
+                gameDAO.close();
+            } catch (DataAccessException e) {
+                System.err.println("Could not write cached games: " + e.getMessage());
+            }
+        }
+        DatabaseManager.releaseConnections();
     }
 
     public int port() {
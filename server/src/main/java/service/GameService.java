@@ -1,14 +1,27 @@
 package service;
 
+import chess.ChessGame;
 import dataaccess.AuthDAO;
 import dataaccess.DataAccessException;
 import dataaccess.GameDAO;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 
 import java.util.List;
 
 public class GameService {
+    /**
+     * One page of the game list
+     *
+     * @param nextCursor the afterGameID for the next page, or null if this is the last
+     */
+    public record GamePage(List<GameSummary> games, Integer nextCursor) {
+    }
+
+    // most games on one page of the list, so a listing costs the same however many games exist
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final GameDAO gameDAO;
     private final AuthDAO authDAO;
 
@@ -21,7 +34,7 @@ public class GameService {
         if (!isAuthenticated(authToken)) {
             throw new IllegalArgumentException("Error: Unauthorized");
         }
-        return gameDAO.getGame(gameID);
+        return gameDAO.getGameSnapshot(gameID);
     }
 
 
@@ -29,12 +42,26 @@ public class GameService {
         return authDAO.getAuth(authToken) != null;
     }
 
-    public List<GameData> listGames(String authToken) throws DataAccessException {
+    /**
+     * Lists games without their boards
+     *
+     * @param afterGameID  the cursor from the previous page, or 0 for the first
+     * @param limit        most games on the page, at most MAX_PAGE_SIZE
+     */
+    public GamePage listGameSummaries(String authToken, GameDAO.GameFilter filter, int afterGameID, int limit)
+            throws DataAccessException {
         AuthData auth = authDAO.getAuth(authToken);
         if (auth == null) {
             throw new IllegalArgumentException("Error: Unauthorized");
         }
-        return gameDAO.getAllGames();
+        limit = Math.min(limit, MAX_PAGE_SIZE);
+        // one extra row says whether there is another page
+        List<GameSummary> games = gameDAO.listGameSummaries(filter, auth.username(), afterGameID, limit + 1);
+        if (games.size() <= limit) {
+            return new GamePage(games, null);
+        }
+        games = games.subList(0, limit);
+        return new GamePage(games, games.get(limit - 1).gameID());
     }
 
     public int createGame(String authToken, String gameName) throws DataAccessException {
@@ -56,22 +83,21 @@ public class GameService {
             throw new IllegalArgumentException("Error: Unauthorized");
         }
 
-        GameData game = gameDAO.getGame(gameID);
+        GameData game = gameDAO.getGameSnapshot(gameID);
         if (game == null) {
             throw new IllegalArgumentException("Error: Invalid game ID");
         }
 
+        // the seat is only taken if it is still free, so two joins cannot both win it
         if ("WHITE".equalsIgnoreCase(playerColor)) {
-            if (game.whiteUsername() != null) {
+            if (!gameDAO.replacePlayer(gameID, ChessGame.TeamColor.WHITE, null, auth.username())) {
                 throw new IllegalArgumentException("Error: White slot already taken");
             }
-            game = new GameData(gameID, auth.username(), game.blackUsername(), game.gameName(), game.game());
         }
         else if ("BLACK".equalsIgnoreCase(playerColor)) {
-            if (game.blackUsername() != null) {
+            if (!gameDAO.replacePlayer(gameID, ChessGame.TeamColor.BLACK, null, auth.username())) {
                 throw new IllegalArgumentException("Error: Black slot already taken");
             }
-            game = new GameData(gameID, game.whiteUsername(), auth.username(), game.gameName(), game.game());
         } else if ("OBSERVER".equalsIgnoreCase(playerColor)) {
             System.out.println(auth.username() + " observing game " + gameID);
             // attempt to add observer
@@ -81,10 +107,5 @@ public class GameService {
         else {
             throw new IllegalArgumentException("Error: Invalid team color");
         }
-
-
-
-
-        gameDAO.updateGame(gameID, game);
     }
 }
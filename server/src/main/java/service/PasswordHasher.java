@@ -0,0 +1,120 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs BCrypt on a few dedicated threads.
+ * <p>
+ * Hashing is slow on purpose, so a burst of logins run on the request threads would
+ * use every core and stall unrelated requests. Here at most {@code threads} hashes
+ * run at once and at most {@code queueLimit} more wait; past that the caller gets a
+ * {@link BusyException} straight away, which the handlers turn into a 503.
+ */
+public class PasswordHasher implements AutoCloseable {
+
+    public static final int DEFAULT_COST = 10;
+
+    /**
+     * Thrown when every hashing thread is busy and the queue is full
+     */
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BusyException() {
+            super("Error: Server busy, try again");
+        }
+    }
+
+    /**
+     * Queue figures right now, and totals since the hasher was created
+     */
+    public record Stats(int threads, int active, int queued, long completed, long rejected,
+                        long averageMicros, long maxMicros) {
+    }
+
+    private final int cost;
+    private final ThreadPoolExecutor workers;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public PasswordHasher() {
+        this(DEFAULT_COST, Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 64);
+    }
+
+    /**
+     * @param cost        BCrypt log rounds for new hashes; each step doubles the work
+     * @param threads     most hashes computed at once
+     * @param queueLimit  most hashes waiting for a thread before callers are turned away
+     */
+    public PasswordHasher(int cost, int threads, int queueLimit) {
+        this.cost = cost;
+        AtomicInteger count = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueLimit), r -> {
+            Thread thread = new Thread(r, "bcrypt-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // idle servers and tests should not keep hashing threads around
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    public String hash(String password) {
+        return run(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    public boolean check(String password, String hash) {
+        return run(() -> BCrypt.checkpw(password, hash));
+    }
+
+    public Stats stats() {
+        long done = completed.sum();
+        return new Stats(workers.getMaximumPoolSize(), workers.getActiveCount(), workers.getQueue().size(),
+                done, rejected.sum(), done == 0 ? 0 : totalMicros.sum() / done, maxMicros.get());
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private <T> T run(Callable<T> work) {
+        try {
+            return workers.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return work.call();
+                } finally {
+                    long micros = (System.nanoTime() - start) / 1000;
+                    completed.increment();
+                    totalMicros.add(micros);
+                    maxMicros.accumulate(micros);
+                }
+            }).get();
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
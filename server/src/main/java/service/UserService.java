@@ -5,39 +5,43 @@ import model.AuthData;
 import model.UserData;
 import dataaccess.AuthDAO;
 import dataaccess.UserDAO;
-import java.util.UUID;
-import org.mindrot.jbcrypt.BCrypt;
 
 public class UserService {
+    // for services built without their own hasher, such as in tests
+    private static final PasswordHasher DEFAULT_HASHER = new PasswordHasher();
+
     private final UserDAO userDAO;
     private final AuthDAO authDAO;
+    private final PasswordHasher hasher;
 
     public UserService(UserDAO userDAO, AuthDAO authDAO) {
+        this(userDAO, authDAO, DEFAULT_HASHER);
+    }
+
+    public UserService(UserDAO userDAO, AuthDAO authDAO, PasswordHasher hasher) {
         this.userDAO = userDAO;
         this.authDAO = authDAO;
+        this.hasher = hasher;
     }
 
     public AuthData register(UserData user) throws DataAccessException {
         if (userDAO.getUser(user.username()) != null) {
             throw new RuntimeException("Thats already taken");
         }
-        userDAO.addUser(user);
-        String token = UUID.randomUUID().toString();
-        authDAO.createAuth(token, user.username());
-        return new AuthData(token, user.username());
+        // hash before touching the database so no connection is held while BCrypt runs
+        String hash = hasher.hash(user.password());
+        userDAO.addHashedUser(new UserData(user.username(), hash, user.email()));
+        return authDAO.createAuth(user.username());
     }
 
     public AuthData login(String username, String password) throws DataAccessException {
         UserData user = userDAO.getUser(username);
 
-        if (user == null || !BCrypt.checkpw(password, user.password())) {
+        if (user == null || !hasher.check(password, user.password())) {
             throw new IllegalArgumentException("Error: Unauthorized");
         }
 
-        String token = UUID.randomUUID().toString();
-        authDAO.createAuth(token, username);
-
-        return new AuthData(token, username);
+        return authDAO.createAuth(username);
     }
 
 
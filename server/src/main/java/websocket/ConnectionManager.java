@@ -4,58 +4,219 @@ import org.eclipse.jetty.websocket.api.Session;
 import java.util.*;
 
 import websocket.messages.Connection;
+import websocket.messages.PreparedFrame;
 import websocket.messages.ServerMessage;
-import com.google.gson.Gson;
 
 import java.io.IOException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 
 public class ConnectionManager {
     // more like petshop
-    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
-    private final Gson gson = new Gson();
+    // one entry per WebSocket session, so a user can follow several games or connect
+    // from several devices at once
+    private final Map<Session, Connection> connections = new ConcurrentHashMap<>();
+    // the same connections grouped by user and by game, so a broadcast only visits
+    // that game's sessions
+    private final Map<String, Set<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Connection>> connectionsByGame = new ConcurrentHashMap<>();
+    private final SendMetrics metrics = new SendMetrics();
 
-    public void add(String username, Session session, int gameID) {
-        connections.put(username, new Connection(username, session, gameID));
+    /**
+     * Registers session as username's connection to gameID. A session that was already
+     * registered is moved to the new game, and its new connection takes over the frames
+     * the old one had not written yet.
+     */
+    public Connection add(String username, Session session, int gameID) {
+        return add(username, session, gameID, false);
     }
 
-    public void remove(String username) {
-        connections.remove(username);
+    /**
+     * @param moveUpdates whether the session gets MOVE_MADE messages instead of a full
+     *                    board after each move
+     * @return the new registration
+     */
+    public Connection add(String username, Session session, int gameID, boolean moveUpdates) {
+        Connection connection = new Connection(username, session, gameID, moveUpdates, metrics);
+        Connection[] replaced = new Connection[1];
+        connections.compute(session, (key, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+                replaced[0] = previous;
+            }
+            connectionsByUser.computeIfAbsent(username, name -> ConcurrentHashMap.newKeySet()).add(connection);
+            connectionsByGame.computeIfAbsent(gameID, id -> ConcurrentHashMap.newKeySet()).add(connection);
+            return connection;
+        });
+        if (replaced[0] != null) {
+            connection.takeOver(replaced[0]);
+        }
+        return connection;
     }
 
-    public Connection getConnection(String username) {
-        return connections.get(username);
+    /**
+     * @return the connection that was registered for session, or null if there was none
+     */
+    public Connection remove(Session session) {
+        Connection[] removed = new Connection[1];
+        connections.computeIfPresent(session, (key, connection) -> {
+            unindex(connection);
+            removed[0] = connection;
+            return null;
+        });
+        return removed[0];
     }
 
+    private void unindex(Connection connection) {
+        connectionsByUser.computeIfPresent(connection.username, (name, user) -> {
+            user.remove(connection);
+            return user.isEmpty() ? null : user;
+        });
+        connectionsByGame.computeIfPresent(connection.gameID, (id, game) -> {
+            game.remove(connection);
+            return game.isEmpty() ? null : game;
+        });
+    }
 
-    public List<Connection> getConnectionsInGame(int gameID) {
-        List<Connection> gameConnections = new ArrayList<>();
+    /**
+     * Makes every session that connected with authToken check it again on its next command
+     */
+    public void revoke(String authToken) {
         for (Connection conn : connections.values()) {
-            if (conn.gameID == gameID) {
-                gameConnections.add(conn);
+            if (authToken.equals(conn.verifiedToken())) {
+                conn.revoke();
             }
         }
-        return gameConnections;
     }
 
-    public void broadcastToGameExcept(String excludeUsername, int gameID, ServerMessage message) throws IOException {
-        String msg = gson.toJson(message);
-        for (Connection conn : getConnectionsInGame(gameID)) {
-            if (!conn.username.equals(excludeUsername) && conn.session.isOpen()) {
-                conn.send(msg);
-            }
-        }
+    public void revokeAll() {
+        connections.values().forEach(Connection::revoke);
+    }
+
+    public Connection getConnection(Session session) {
+        return connections.get(session);
+    }
+
+    /**
+     * @return every open connection of username, across games and devices
+     */
+    public Collection<Connection> getConnections(String username) {
+        Set<Connection> user = connectionsByUser.get(username);
+        return user == null ? Collections.emptySet() : Collections.unmodifiableSet(user);
+    }
+
+    public Collection<Connection> getConnectionsInGame(int gameID) {
+        Set<Connection> game = connectionsByGame.get(gameID);
+        return game == null ? Collections.emptySet() : Collections.unmodifiableSet(game);
+    }
+
+    public void broadcastToGameExcept(Session excludeSession, int gameID, ServerMessage message) throws IOException {
+        broadcast(gameID).toAllExcept(excludeSession, message).send();
     }
 
     public void broadcastToGame(int gameID, ServerMessage message) throws IOException {
-        String msg = gson.toJson(message);
-        for (Connection conn : getConnectionsInGame(gameID)) {
-            if (conn.session.isOpen()) {
-                conn.send(msg);
+        broadcast(gameID).toAll(message).send();
+    }
+
+    /**
+     * Tells every session in gameID about a move: a MOVE_MADE to sessions that keep
+     * their own copy of the game, the full board to the rest
+     */
+    public void broadcastMove(int gameID, ServerMessage loadGame, ServerMessage moveMade) {
+        broadcast(gameID).move(loadGame, moveMade).send();
+    }
+
+    /**
+     * Starts collecting the messages one command sends to gameID, so each recipient
+     * gets all of its frames in one write
+     */
+    public Broadcast broadcast(int gameID) {
+        return new Broadcast(gameID);
+    }
+
+    /**
+     * The messages a command sends to one game. Each message is serialized once, and
+     * only if some session is going to get it; {@link #send} then walks the game's
+     * sessions once and queues every frame meant for a session together.
+     */
+    public final class Broadcast {
+        private final int gameID;
+        private final List<Outgoing> messages = new ArrayList<>();
+
+        private Broadcast(int gameID) {
+            this.gameID = gameID;
+        }
+
+        public Broadcast toAll(ServerMessage message) {
+            messages.add(new Outgoing(message, conn -> true));
+            return this;
+        }
+
+        public Broadcast toAllExcept(Session excludeSession, ServerMessage message) {
+            messages.add(new Outgoing(message, conn -> conn.session != excludeSession));
+            return this;
+        }
+
+        /**
+         * moveMade to sessions that asked for move updates, loadGame to the rest
+         */
+        public Broadcast move(ServerMessage loadGame, ServerMessage moveMade) {
+            messages.add(new Outgoing(loadGame, conn -> !conn.moveUpdates));
+            messages.add(new Outgoing(moveMade, conn -> conn.moveUpdates));
+            return this;
+        }
+
+        public void send() {
+            List<PreparedFrame> frames = new ArrayList<>(messages.size());
+            for (Connection conn : getConnectionsInGame(gameID)) {
+                if (!conn.session.isOpen()) {
+                    continue;
+                }
+                frames.clear();
+                for (Outgoing message : messages) {
+                    if (message.audience.test(conn)) {
+                        frames.add(message.frame());
+                    }
+                }
+                if (!frames.isEmpty()) {
+                    conn.sendAll(frames);
+                }
             }
         }
     }
 
+    private static final class Outgoing {
+        final ServerMessage message;
+        final Predicate<Connection> audience;
+        PreparedFrame frame;
 
+        Outgoing(ServerMessage message, Predicate<Connection> audience) {
+            this.message = message;
+            this.audience = audience;
+        }
+
+        PreparedFrame frame() {
+            if (frame == null) {
+                frame = PreparedFrame.of(message);
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * @return the outbound queue depths right now, with the running send totals
+     */
+    public SendMetrics.Snapshot getSendStats() {
+        int count = 0;
+        long queued = 0;
+        int deepest = 0;
+        for (Connection conn : connections.values()) {
+            int depth = conn.queueDepth();
+            count++;
+            queued += depth;
+            deepest = Math.max(deepest, depth);
+        }
+        return metrics.snapshot(count, queued, deepest);
+    }
 }
@@ -0,0 +1,152 @@
+package websocket;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs WebSocket commands one game at a time.
+ * <p>
+ * Each game gets a mailbox. Commands for the same game run one after another in the
+ * order they were submitted, so two moves can never read and write the same game at
+ * once, while commands for different games run in parallel on a shared pool. A
+ * mailbox exists only while it has work, and a busy game hands its thread back
+ * after a batch of commands so it cannot starve the others.
+ */
+public class GameCommandExecutor {
+
+    // commands a mailbox runs before giving its thread to another game
+    private static final int BATCH = 32;
+
+    private final ExecutorService workers;
+    private final Map<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private static final class Mailbox {
+        final int gameID;
+        final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        // only read or written inside mailboxes.compute for this game
+        boolean running;
+
+        Mailbox(int gameID) {
+            this.gameID = gameID;
+        }
+    }
+
+    public GameCommandExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameCommandExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "game-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues command to run after every command already submitted for gameID
+     *
+     * @throws RejectedExecutionException after {@link #shutdown}; nothing is queued then
+     */
+    public void submit(int gameID, Runnable command) {
+        if (workers.isShutdown()) {
+            throw new RejectedExecutionException("Game commands are no longer accepted");
+        }
+        boolean[] start = {false};
+        Mailbox mailbox = mailboxes.compute(gameID, (id, current) -> {
+            Mailbox box = current == null ? new Mailbox(id) : current;
+            box.commands.add(command);
+            if (!box.running) {
+                box.running = true;
+                start[0] = true;
+            }
+            return box;
+        });
+        if (start[0]) {
+            try {
+                workers.execute(() -> drain(mailbox));
+            } catch (RejectedExecutionException e) {
+                // shut down since the check above: nothing will drain this mailbox, so take it back
+                mailboxes.compute(gameID, (id, current) -> {
+                    mailbox.commands.remove(command);
+                    mailbox.running = false;
+                    return mailbox.commands.isEmpty() ? null : current;
+                });
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return how many games currently have commands queued or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Runs the commands already queued, then stops the worker threads
+     */
+    public void shutdown() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        int ran = 0;
+        while (true) {
+            Runnable command = mailbox.commands.poll();
+            if (command == null) {
+                if (finish(mailbox)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+
+            if (++ran == BATCH) {
+                try {
+                    // keep our place but let other games have the thread
+                    workers.execute(() -> drain(mailbox));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // shutting down: finish the queue here
+                    ran = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the mailbox if nothing was queued since the last poll. submit adds
+     * commands inside the same compute, so a command can't slip in between.
+     */
+    private boolean finish(Mailbox mailbox) {
+        boolean[] finished = {false};
+        mailboxes.compute(mailbox.gameID, (id, current) -> {
+            if (mailbox.commands.isEmpty()) {
+                mailbox.running = false;
+                finished[0] = true;
+                return null;
+            }
+            return current;
+        });
+        return finished[0];
+    }
+}
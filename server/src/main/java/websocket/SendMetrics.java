@@ -0,0 +1,44 @@
+package websocket;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for outbound WebSocket traffic, shared by every connection of a
+ * {@link ConnectionManager}
+ */
+public class SendMetrics {
+
+    /**
+     * A point in time view: the current queue depths plus the running totals
+     */
+    public record Snapshot(int connections, long queuedFrames, int maxQueueDepth,
+                           long sentFrames, long replacedFrames, long failedWrites,
+                           long slowConsumerDisconnects) {
+    }
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+
+    public void frameSent() {
+        sent.increment();
+    }
+
+    public void frameReplaced() {
+        replaced.increment();
+    }
+
+    public void writeFailed() {
+        failed.increment();
+    }
+
+    public void slowConsumerDisconnected() {
+        disconnects.increment();
+    }
+
+    Snapshot snapshot(int connections, long queuedFrames, int maxQueueDepth) {
+        return new Snapshot(connections, queuedFrames, maxQueueDepth,
+                sent.sum(), replaced.sum(), failed.sum(), disconnects.sum());
+    }
+}
@@ -1,20 +1,220 @@
 package websocket.messages;
 
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
-import java.io.IOException;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import websocket.SendMetrics;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One WebSocket session's registration in a game, with its outbound queue.
+ * <p>
+ * Frames are written with Jetty's non-blocking sendString. Everything queued when a
+ * write starts goes to Jetty together, so the frames a command produces for this
+ * session leave in one network write, and the next burst waits until that one is
+ * done; a slow client only ever holds up its own queue. A queued board update that
+ * has not gone out yet is replaced by a newer one, since only the latest board
+ * matters. If the queue still fills up the client is too slow to keep up and is
+ * disconnected.
+ */
 public class Connection {
+    public static final int MAX_QUEUED_FRAMES = 64;
+    // frames handed to Jetty in one write
+    private static final int MAX_BURST = 16;
+
     public final String username;
     public final Session session;
     public final int gameID;
+    // gets MOVE_MADE deltas rather than a LOAD_GAME after each move
+    public final boolean moveUpdates;
+
+    // the token this session proved at CONNECT, and when the database last confirmed it
+    private volatile String verifiedToken;
+    private volatile long verifiedAt;
+
+    private final SendMetrics metrics;
+    private final Deque<PreparedFrame> queue = new ArrayDeque<>();
+    private int inFlight;
+    private boolean closed;
 
     public Connection(String username, Session session, int gameID) {
+        this(username, session, gameID, false, new SendMetrics());
+    }
+
+    public Connection(String username, Session session, int gameID, boolean moveUpdates, SendMetrics metrics) {
         this.username = username;
         this.session = session;
         this.gameID = gameID;
+        this.moveUpdates = moveUpdates;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Records that the database just confirmed authToken for this session
+     */
+    public void markVerified(String authToken) {
+        verifiedToken = authToken;
+        verifiedAt = System.currentTimeMillis();
     }
 
-    public void send(String message) throws IOException {
-        session.getRemote().sendString(message);
+    /**
+     * @return whether authToken is the token this session proved, confirmed within maxAgeMillis
+     */
+    public boolean isVerified(String authToken, long maxAgeMillis) {
+        String token = verifiedToken;
+        return token != null && token.equals(authToken)
+                && System.currentTimeMillis() - verifiedAt < maxAgeMillis;
+    }
+
+    /**
+     * @return the token this session proved, or null if it has been revoked
+     */
+    public String verifiedToken() {
+        return verifiedToken;
+    }
+
+    /**
+     * Makes the next command check its token with the database again
+     */
+    public void revoke() {
+        verifiedToken = null;
+    }
+
+    /**
+     * Queues a frame that must be delivered
+     */
+    public void send(String message) {
+        send(PreparedFrame.of(message, false));
+    }
+
+    /**
+     * Queues a frame that may be skipped if a newer replaceable frame, such as a newer
+     * LOAD_GAME, is queued before it is written
+     */
+    public void sendReplaceable(String message) {
+        send(PreparedFrame.of(message, true));
+    }
+
+    public void send(PreparedFrame frame) {
+        sendAll(List.of(frame));
+    }
+
+    /**
+     * Queues frames to go out together, in order
+     */
+    public void sendAll(List<PreparedFrame> frames) {
+        boolean tooSlow = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (PreparedFrame frame : frames) {
+                if (frame.replaceable()) {
+                    for (Iterator<PreparedFrame> it = queue.iterator(); it.hasNext(); ) {
+                        if (it.next().replaceable()) {
+                            it.remove();
+                            metrics.frameReplaced();
+                        }
+                    }
+                }
+                if (queue.size() >= MAX_QUEUED_FRAMES) {
+                    closed = true;
+                    queue.clear();
+                    tooSlow = true;
+                    break;
+                }
+                queue.add(frame);
+            }
+        }
+
+        if (tooSlow) {
+            metrics.slowConsumerDisconnected();
+            session.close(StatusCode.POLICY_VIOLATION, "Client is not keeping up");
+            return;
+        }
+        writeNext();
+    }
+
+    /**
+     * Takes over the frames previous has not written yet, ahead of anything already
+     * queued here, and stops previous from writing any more. Frames previous has already
+     * handed to Jetty still go out first, since Jetty writes non-blocking frames in the
+     * order they were sent.
+     */
+    public void takeOver(Connection previous) {
+        List<PreparedFrame> pending;
+        synchronized (previous) {
+            pending = new ArrayList<>(previous.queue);
+            previous.queue.clear();
+            previous.closed = true;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                queue.addFirst(pending.get(i));
+            }
+        }
+        writeNext();
+    }
+
+    /**
+     * @return frames waiting to be written, not counting ones in flight
+     */
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    private void writeNext() {
+        List<PreparedFrame> burst = new ArrayList<>();
+        synchronized (this) {
+            if (inFlight > 0 || closed) {
+                return;
+            }
+            while (burst.size() < MAX_BURST && !queue.isEmpty()) {
+                burst.add(queue.poll());
+            }
+            inFlight = burst.size();
+        }
+
+        RemoteEndpoint remote = session.getRemote();
+        WriteCallback callback = new WriteCallback() {
+            @Override
+            public void writeSuccess() {
+                metrics.frameSent();
+                boolean burstDone;
+                synchronized (Connection.this) {
+                    burstDone = --inFlight == 0;
+                }
+                if (burstDone) {
+                    writeNext();
+                }
+            }
+
+            @Override
+            public void writeFailed(Throwable cause) {
+                metrics.writeFailed();
+                boolean first;
+                synchronized (Connection.this) {
+                    inFlight--;
+                    first = !closed;
+                    closed = true;
+                    queue.clear();
+                }
+                if (first) {
+                    System.err.println("Dropping connection for " + username + ": " + cause.getMessage());
+                }
+            }
+        };
+        for (PreparedFrame frame : burst) {
+            remote.sendString(frame.text(), callback);
+        }
     }
 }
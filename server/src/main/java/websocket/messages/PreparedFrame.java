@@ -0,0 +1,42 @@
+package websocket.messages;
+
+import com.google.gson.Gson;
+
+/**
+ * A {@link ServerMessage} serialized once, ready to be queued on any number of
+ * connections without another trip through Gson.
+ */
+public final class PreparedFrame {
+    private static final Gson GSON = new Gson();
+
+    private final String text;
+    private final boolean replaceable;
+
+    private PreparedFrame(String text, boolean replaceable) {
+        this.text = text;
+        this.replaceable = replaceable;
+    }
+
+    /**
+     * A LOAD_GAME frame is replaceable: a newer board makes an unsent one pointless
+     */
+    public static PreparedFrame of(ServerMessage message) {
+        return new PreparedFrame(GSON.toJson(message),
+                message.getServerMessageType() == ServerMessage.ServerMessageType.LOAD_GAME);
+    }
+
+    /**
+     * Wraps text that is already serialized
+     */
+    public static PreparedFrame of(String text, boolean replaceable) {
+        return new PreparedFrame(text, replaceable);
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public boolean replaceable() {
+        return replaceable;
+    }
+}
@@ -0,0 +1,145 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class CachingAuthDAOTest {
+
+    // in-memory store that counts lookups
+    private static class FakeStore extends AuthDAO {
+        final Map<String, String> tokens = new HashMap<>();
+        int lookups;
+
+        @Override
+        public void createAuth(String authToken, String username) {
+            tokens.put(authToken, username);
+        }
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups++;
+            String username = tokens.get(authToken);
+            return username == null ? null : new AuthData(authToken, username);
+        }
+
+        @Override
+        public void deleteAuth(String authToken) {
+            tokens.remove(authToken);
+        }
+
+        @Override
+        public void clear() {
+            tokens.clear();
+        }
+    }
+
+    private FakeStore store;
+    private CachingAuthDAO cache;
+
+    @BeforeEach
+    void setUp() {
+        store = new FakeStore();
+        store.tokens.put("token", "user");
+        cache = new CachingAuthDAO(store, 2, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Test
+    void getAuthPositiveReadsStoreOnce() throws DataAccessException {
+        assertEquals("user", cache.getAuth("token").username());
+        assertEquals("user", cache.getAuth("token").username());
+
+        assertEquals(1, store.lookups);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(0.5, cache.stats().hitRate());
+    }
+
+    @Test
+    void getAuthNegativeUnknownTokenIsRemembered() throws DataAccessException {
+        assertNull(cache.getAuth("bad"));
+        assertNull(cache.getAuth("bad"));
+
+        assertEquals(1, store.lookups);
+        assertEquals(1, cache.stats().negativeHits());
+    }
+
+    @Test
+    void deleteAuthTakesEffectImmediately() throws DataAccessException {
+        cache.getAuth("token");
+        cache.deleteAuth("token");
+
+        assertNull(cache.getAuth("token"));
+        assertEquals(2, store.lookups);
+    }
+
+    @Test
+    void clearForgetsEveryToken() throws DataAccessException {
+        cache.getAuth("token");
+        cache.clear();
+
+        assertNull(cache.getAuth("token"));
+        assertEquals(0, store.tokens.size());
+    }
+
+    @Test
+    void createdTokenIsCachedAndReplacesNegativeEntry() throws DataAccessException {
+        assertNull(cache.getAuth("fresh"));
+        cache.createAuth("fresh", "newcomer");
+
+        assertEquals("newcomer", cache.getAuth("fresh").username());
+        assertEquals(1, store.lookups);
+    }
+
+    @Test
+    void leastRecentlyUsedTokenIsEvicted() throws DataAccessException {
+        store.tokens.put("a", "alice");
+        store.tokens.put("b", "bob");
+        cache.getAuth("token");
+        cache.getAuth("a");
+        cache.getAuth("token");
+        cache.getAuth("b");
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(1, cache.stats().evictions());
+        cache.getAuth("token");
+        assertEquals(3, store.lookups, "The most recently used token should still be cached");
+    }
+
+    @Test
+    void expiredEntryIsReadAgain() throws DataAccessException {
+        cache = new CachingAuthDAO(store, 2, 0, 0);
+        cache.getAuth("token");
+        cache.getAuth("token");
+
+        assertEquals(2, store.lookups);
+    }
+
+    @Test
+    void listenersHearAboutRevokedTokens() throws DataAccessException {
+        List<String> revoked = new ArrayList<>();
+        cache.addRevocationListener(new CachingAuthDAO.RevocationListener() {
+            @Override
+            public void revoked(String authToken) {
+                revoked.add(authToken);
+            }
+
+            @Override
+            public void revokedAll() {
+                revoked.add("*");
+            }
+        });
+
+        cache.deleteAuth("token");
+        cache.invalidateAll();
+
+        assertEquals(List.of("token", "*"), revoked);
+    }
+}
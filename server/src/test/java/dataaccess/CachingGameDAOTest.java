@@ -0,0 +1,300 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import model.GameSummary;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class CachingGameDAOTest {
+
+    // in-memory store that records what the cache writes to it
+    private static class FakeStore extends GameDAO {
+        final Map<Integer, GameData> games = new HashMap<>();
+        final List<List<LoggedMove>> batches = new ArrayList<>();
+        final List<ChessGame> snapshots = new ArrayList<>();
+        int loads;
+        int updates;
+        boolean failNextWrite;
+        boolean failNextUpdate;
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            loads++;
+            GameData game = games.get(gameID);
+            if (game == null) {
+                throw new DataAccessException("Game with ID " + gameID + " not found.");
+            }
+            return new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(),
+                    game.game().deepCopy());
+        }
+
+        @Override
+        public List<GameSummary> listGameSummaries(GameFilter filter, String username, int afterGameID, int limit) {
+            return games.values().stream()
+                    .filter(game -> game.gameID() > afterGameID)
+                    .sorted(Comparator.comparingInt(GameData::gameID))
+                    .map(game -> new GameSummary(game.gameID(), game.whiteUsername(), game.blackUsername(),
+                            game.gameName(), GameSummary.statusOf(game.whiteUsername(), game.blackUsername(),
+                                    game.game().getGameOver())))
+                    .filter(game -> filter.matches(game, username))
+                    .limit(limit)
+                    .toList();
+        }
+
+        @Override
+        public void updateGame(int gameID, GameData updatedGame) throws DataAccessException {
+            failIfAsked();
+            if (failNextUpdate) {
+                failNextUpdate = false;
+                throw new DataAccessException("Database is down");
+            }
+            updates++;
+            games.put(gameID, updatedGame);
+        }
+
+        @Override
+        public boolean replacePlayer(int gameID, ChessGame.TeamColor color, String expected, String replacement) {
+            throw new AssertionError("Seat changes should go through the cached entry");
+        }
+
+        @Override
+        public void appendMoves(int gameID, List<LoggedMove> moves, ChessGame snapshot) throws DataAccessException {
+            failIfAsked();
+            batches.add(moves);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+
+        private void failIfAsked() throws DataAccessException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                throw new DataAccessException("Database is down");
+            }
+        }
+    }
+
+    private FakeStore store;
+    private CachingGameDAO cache;
+
+    @BeforeEach
+    void setUp() {
+        store = new FakeStore();
+        store.games.put(1, new GameData(1, "white", "black", "Cached Game", new ChessGame()));
+        // flush only when the test asks
+        cache = new CachingGameDAO(store, TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(1));
+    }
+
+    @AfterEach
+    void tearDown() throws DataAccessException {
+        cache.close();
+    }
+
+    private void play(GameData data, ChessMove move) throws InvalidMoveException, DataAccessException {
+        data.game().makeMove(move);
+        cache.appendMove(data.gameID(), data.game(), move);
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+
+    @Test
+    void getGamePositiveLoadsOnce() throws DataAccessException {
+        GameData first = cache.getGame(1);
+        GameData second = cache.getGame(1);
+
+        assertSame(first, second, "Cache should hand out the same live copy");
+        assertEquals(1, store.loads);
+    }
+
+    @Test
+    void getGameNegativeNonExistent() {
+        assertThrows(DataAccessException.class, () -> cache.getGame(9999));
+    }
+
+    @Test
+    void movesAreWrittenInOneBatch() throws Exception {
+        GameData data = cache.getGame(1);
+        play(data, move(2, 5, 4, 5));
+        play(data, move(7, 5, 5, 5));
+        play(data, move(1, 7, 3, 6));
+
+        assertTrue(store.batches.isEmpty(), "Moves should wait for the flush");
+        cache.flushAll();
+
+        assertEquals(1, store.batches.size());
+        assertEquals(List.of(1, 2, 3), store.batches.get(0).stream().map(GameDAO.LoggedMove::ply).toList());
+        assertTrue(store.snapshots.isEmpty(), "No snapshot is due after three plies");
+    }
+
+    @Test
+    void gameEndIsWrittenImmediately() throws Exception {
+        GameData data = cache.getGame(1);
+        play(data, move(2, 6, 3, 6));
+        play(data, move(7, 5, 5, 5));
+        play(data, move(2, 7, 4, 7));
+        play(data, move(8, 4, 4, 8));
+
+        assertEquals(1, store.batches.size(), "Checkmate should be written without waiting");
+        assertEquals(1, store.snapshots.size());
+        assertTrue(store.snapshots.get(0).getGameOver());
+    }
+
+    @Test
+    void updateGameOfUncachedGameWritesThrough() throws DataAccessException {
+        cache.updateGame(1, new GameData(1, "someone", null, "Renamed", new ChessGame()));
+
+        assertEquals(1, store.updates);
+        assertEquals("Renamed", store.games.get(1).gameName());
+    }
+
+    @Test
+    void updateGameOfCachedGameIsVisibleBeforeItIsWritten() throws DataAccessException {
+        cache.getGame(1);
+        cache.updateGame(1, new GameData(1, "white", null, "Cached Game", new ChessGame()));
+
+        assertEquals(0, store.updates);
+        assertNull(cache.getGame(1).blackUsername());
+        assertEquals(GameSummary.Status.WAITING,
+                cache.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10).get(0).status());
+
+        cache.close();
+        assertEquals(1, store.updates, "Closing should write queued changes");
+    }
+
+    @Test
+    void failedWriteIsRetried() throws Exception {
+        GameData data = cache.getGame(1);
+        play(data, move(2, 5, 4, 5));
+
+        store.failNextWrite = true;
+        assertThrows(DataAccessException.class, () -> cache.flushAll());
+        assertTrue(store.batches.isEmpty());
+
+        cache.flushAll();
+        assertEquals(1, store.batches.size());
+        assertEquals(1, store.batches.get(0).size());
+    }
+
+    @Test
+    void failedMetadataWriteDoesNotRewriteCommittedMoves() throws Exception {
+        GameData data = cache.getGame(1);
+        play(data, move(2, 5, 4, 5));
+        assertTrue(cache.replacePlayer(1, ChessGame.TeamColor.BLACK, "black", null));
+
+        store.failNextUpdate = true;
+        assertThrows(DataAccessException.class, () -> cache.flushAll());
+        assertEquals(1, store.batches.size(), "The moves were written before the metadata failed");
+
+        cache.flushAll();
+        play(data, move(7, 5, 5, 5));
+        cache.flushAll();
+
+        assertEquals(1, store.updates);
+        assertNull(store.games.get(1).blackUsername());
+        List<Integer> plies = store.batches.stream().flatMap(List::stream).map(GameDAO.LoggedMove::ply).toList();
+        assertEquals(List.of(1, 2), plies, "Each ply should be written exactly once");
+    }
+
+    @Test
+    void listingWritesQueuedPlayersFirst() throws DataAccessException {
+        cache.getGame(1);
+        cache.updateGame(1, new GameData(1, "white", null, "Cached Game", new ChessGame()));
+
+        List<GameSummary> open = cache.listGameSummaries(GameDAO.GameFilter.OPEN, null, 0, 10);
+
+        assertEquals(1, store.updates, "The open seat should be written before the store filters");
+        assertEquals(1, open.size());
+        assertEquals(GameSummary.Status.WAITING, open.get(0).status());
+    }
+
+    @Test
+    void snapshotIsACopyOfTheLastRecordedState() throws Exception {
+        GameData live = cache.getGame(1);
+        play(live, move(2, 5, 4, 5));
+
+        GameData snapshot = cache.getGameSnapshot(1);
+
+        assertNotSame(live.game(), snapshot.game(), "Readers must not share the live game");
+        assertEquals(live.game().getBoard(), snapshot.game().getBoard());
+        live.game().makeMove(move(7, 5, 5, 5));
+        assertEquals(1, snapshot.game().getPly(), "A move not yet recorded should not show in the snapshot");
+    }
+
+    @Test
+    void replacePlayerOnlyTakesAFreeSeat() throws DataAccessException {
+        GameData live = cache.getGame(1);
+
+        assertTrue(cache.replacePlayer(1, ChessGame.TeamColor.BLACK, "black", null));
+        assertFalse(cache.replacePlayer(1, ChessGame.TeamColor.BLACK, "black", null), "The seat was already freed");
+        assertTrue(cache.replacePlayer(1, ChessGame.TeamColor.BLACK, null, "newcomer"));
+        assertFalse(cache.replacePlayer(1, ChessGame.TeamColor.BLACK, null, "late"));
+
+        assertEquals("newcomer", cache.getGame(1).blackUsername());
+        assertSame(live.game(), cache.getGame(1).game(), "A seat change should keep the live game");
+        cache.flushAll();
+        assertEquals("newcomer", store.games.get(1).blackUsername());
+    }
+
+    @Test
+    void savedStateIsWrittenAsASnapshot() throws DataAccessException {
+        GameData live = cache.getGame(1);
+        live.game().resign();
+
+        cache.saveGameState(1, live.game());
+
+        assertEquals(1, store.snapshots.size(), "A finished game should be written straight away");
+        assertTrue(store.snapshots.get(0).getGameOver());
+        assertTrue(cache.getGameSnapshot(1).game().getGameOver());
+    }
+
+    @Test
+    void listingLeavesQueuedMovesForTheFlusher() throws Exception {
+        GameData data = cache.getGame(1);
+        play(data, move(2, 5, 4, 5));
+
+        List<GameSummary> games = cache.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10);
+
+        assertEquals(1, games.size());
+        assertTrue(store.batches.isEmpty(), "Listing should not write moves");
+    }
+
+    @Test
+    void listingShowsCachedSeatsWhenTheirWriteFails() throws DataAccessException {
+        cache.getGame(1);
+        cache.replacePlayer(1, ChessGame.TeamColor.BLACK, "black", null);
+        store.failNextWrite = true;
+
+        List<GameSummary> inProgress = cache.listGameSummaries(GameDAO.GameFilter.IN_PROGRESS, null, 0, 10);
+        List<GameSummary> all = cache.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10);
+
+        assertTrue(inProgress.isEmpty(), "The freed seat should take the game out of IN_PROGRESS");
+        assertEquals(GameSummary.Status.WAITING, all.get(0).status());
+    }
+
+    @Test
+    void listingFillsThePageWhenACachedGameDropsOut() throws DataAccessException {
+        store.games.put(2, new GameData(2, "white", "black", "Second", new ChessGame()));
+        store.games.put(3, new GameData(3, "white", "black", "Third", new ChessGame()));
+        cache.getGame(1);
+        cache.replacePlayer(1, ChessGame.TeamColor.BLACK, "black", null);
+        store.failNextWrite = true;
+
+        List<GameSummary> page = cache.listGameSummaries(GameDAO.GameFilter.IN_PROGRESS, null, 0, 2);
+
+        assertEquals(List.of(2, 3), page.stream().map(GameSummary::gameID).toList());
+    }
+}
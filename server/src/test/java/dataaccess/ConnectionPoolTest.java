@@ -0,0 +1,203 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class ConnectionPoolTest {
+
+    // stand-in physical connection that only tracks the state the pool touches
+    private static final class FakeConnection {
+        boolean valid = true;
+        boolean closed;
+        boolean autoCommit = true;
+        int rollbacks;
+        Runnable onClose = () -> { };
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "isValid" -> valid;
+                        case "isClosed" -> closed;
+                        case "close" -> {
+                            closed = true;
+                            onClose.run();
+                            yield null;
+                        }
+                        case "getAutoCommit" -> autoCommit;
+                        case "setAutoCommit" -> {
+                            autoCommit = (Boolean) args[0];
+                            yield null;
+                        }
+                        case "rollback" -> {
+                            rollbacks++;
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ConnectionPool(() -> {
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, 1, 2, 100, 1, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void returnedConnectionIsReused() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+
+        assertEquals(1, opened.size(), "Second borrow should reuse the first connection");
+        assertFalse(opened.get(0).closed, "Closing the wrapper should not close the real connection");
+        assertEquals(2, pool.stats().borrowed());
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    void borrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+
+        assertThrows(SQLException.class, () -> pool.borrow());
+        assertEquals(1, pool.stats().timeouts());
+        assertEquals(2, pool.stats().active());
+
+        first.close();
+        second.close();
+        assertEquals(0, pool.stats().active());
+    }
+
+    @Test
+    void invalidIdleConnectionIsReplaced() throws SQLException {
+        pool.borrow().close();
+        opened.get(0).valid = false;
+
+        pool.borrow().close();
+
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed, "Invalid connection should be closed");
+        assertEquals(1, pool.stats().validationFailures());
+        assertEquals(1, pool.stats().total());
+    }
+
+    @Test
+    void openTransactionIsRolledBackOnReturn() throws SQLException {
+        try (Connection conn = pool.borrow()) {
+            conn.setAutoCommit(false);
+        }
+
+        assertEquals(1, opened.get(0).rollbacks);
+        assertTrue(opened.get(0).autoCommit);
+    }
+
+    @Test
+    void returnedWrapperCannotBeUsed() throws SQLException {
+        Connection conn = pool.borrow();
+        conn.close();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.setAutoCommit(false));
+        assertEquals(1, pool.stats().idle(), "Closing twice should only return the connection once");
+    }
+
+    @Test
+    void warmUpOpensMinimumConnections() throws SQLException {
+        pool.warmUp();
+
+        assertEquals(1, opened.size());
+        assertEquals(1, pool.stats().idle());
+    }
+
+    @Test
+    void maintenanceRefillsToMinimum() throws SQLException {
+        pool.warmUp();
+        Connection held = pool.borrow();
+        assertEquals(0, pool.stats().idle());
+
+        pool.maintain();
+
+        assertEquals(1, pool.stats().idle(), "Idle connections should be topped back up to minSize");
+        held.close();
+    }
+
+    @Test
+    void maintenanceDoesNothingAfterClearIdle() throws SQLException {
+        pool.warmUp();
+        pool.clearIdle();
+
+        pool.maintain();
+
+        assertEquals(0, pool.stats().total(), "A released pool should not reopen connections");
+    }
+
+    @Test
+    void refillCannotPushThePoolPastMaxSize() throws Exception {
+        CountDownLatch refillOpening = new CountDownLatch(1);
+        CountDownLatch letRefillFinish = new CountDownLatch(1);
+        List<Thread> refills = new ArrayList<>();
+        pool.close();
+        pool = new ConnectionPool(() -> {
+            if (refills.contains(Thread.currentThread())) {
+                refillOpening.countDown();
+                try {
+                    letRefillFinish.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, 1, 1, 100, 1, 0);
+        pool.warmUp();
+
+        // while the borrower is between dropping a dead connection and opening a new
+        // one, a background refill starts opening too
+        FakeConnection dead = opened.get(0);
+        dead.valid = false;
+        dead.onClose = () -> {
+            Thread refill = new Thread(pool::maintain);
+            refills.add(refill);
+            refill.start();
+            try {
+                refillOpening.await(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Connection conn = pool.borrow();
+        letRefillFinish.countDown();
+        refills.get(0).join();
+
+        assertTrue(pool.stats().total() <= 1, "Pool opened " + pool.stats().total() + " connections, max is 1");
+        conn.close();
+    }
+}
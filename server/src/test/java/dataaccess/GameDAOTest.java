@@ -1,8 +1,12 @@
 package dataaccess;
 
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
 import org.junit.jupiter.api.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,14 +53,33 @@ class GameDAOTest {
     }
 
     @Test
-    void getAllGamesPositive() throws DataAccessException {
+    void listGameSummariesPositiveAll() throws DataAccessException {
         gameDAO.createGame("Game 1");
         gameDAO.createGame("Game 2");
 
-        List<GameData> games = gameDAO.getAllGames();
+        List<GameSummary> games = gameDAO.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10);
         assertEquals(2, games.size(), "Should get just 2 games");
     }
 
+    @Test
+    void listGameSummariesFiltersAndPages() throws DataAccessException {
+        userDAO.addUser(new UserData("userWhite", "passwordW", "abc123@test.com"));
+        userDAO.addUser(new UserData("userBlack", "passwordB", "abc456@test.com"));
+        int open = gameDAO.createGame("Open Game");
+        int full = gameDAO.createGame("Full Game");
+        gameDAO.createGame("Empty Game");
+        gameDAO.updateGame(full, new GameData(full, "userWhite", "userBlack", "Full Game", new ChessGame()));
+
+        List<GameSummary> firstPage = gameDAO.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 2);
+        assertEquals(List.of(open, full), firstPage.stream().map(GameSummary::gameID).toList());
+        assertEquals(1, gameDAO.listGameSummaries(GameDAO.GameFilter.ALL, null, full, 2).size());
+
+        List<GameSummary> mine = gameDAO.listGameSummaries(GameDAO.GameFilter.MINE, "userBlack", 0, 10);
+        assertEquals(1, mine.size());
+        assertEquals(GameSummary.Status.IN_PROGRESS, mine.get(0).status());
+        assertEquals(2, gameDAO.listGameSummaries(GameDAO.GameFilter.OPEN, null, 0, 10).size());
+    }
+
     @Test
     void updateGamePositive() throws DataAccessException {
         userDAO.addUser(new UserData("userWhite", "passwordW", "abc123@test.com"));
@@ -80,13 +103,102 @@ class GameDAOTest {
         assertThrows(DataAccessException.class, () -> gameDAO.updateGame(9999, fakeGame));
     }
 
+    @Test
+    void replacePlayerPositiveTakesFreeSeat() throws DataAccessException {
+        userDAO.addUser(new UserData("userWhite", "passwordW", "abc123@test.com"));
+        int gameID = gameDAO.createGame("Seat Game");
+
+        assertTrue(gameDAO.replacePlayer(gameID, ChessGame.TeamColor.WHITE, null, "userWhite"));
+        assertEquals("userWhite", gameDAO.getGame(gameID).whiteUsername());
+
+        assertTrue(gameDAO.replacePlayer(gameID, ChessGame.TeamColor.WHITE, "userWhite", null));
+        assertNull(gameDAO.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    void replacePlayerNegativeSeatTaken() throws DataAccessException {
+        userDAO.addUser(new UserData("userWhite", "passwordW", "abc123@test.com"));
+        userDAO.addUser(new UserData("userBlack", "passwordB", "abc456@test.com"));
+        int gameID = gameDAO.createGame("Seat Game");
+        gameDAO.replacePlayer(gameID, ChessGame.TeamColor.WHITE, null, "userWhite");
+
+        assertFalse(gameDAO.replacePlayer(gameID, ChessGame.TeamColor.WHITE, null, "userBlack"));
+        assertFalse(gameDAO.replacePlayer(9999, ChessGame.TeamColor.WHITE, null, "userBlack"));
+        assertEquals("userWhite", gameDAO.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    void appendMovePositiveReplaysPastSnapshot() throws DataAccessException, InvalidMoveException {
+        int gameID = gameDAO.createGame("Logged Game");
+        ChessGame game = gameDAO.getGame(gameID).game();
+
+        // knights out and back, enough plies to cross a snapshot and leave a tail
+        ChessMove[] shuffle = {
+                new ChessMove(ChessPosition.of(1, 2), ChessPosition.of(3, 3), null),
+                new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3), null),
+                new ChessMove(ChessPosition.of(3, 3), ChessPosition.of(1, 2), null),
+                new ChessMove(ChessPosition.of(6, 3), ChessPosition.of(8, 2), null)
+        };
+        for (int i = 0; i < GameDAO.SNAPSHOT_INTERVAL + 2; i++) {
+            ChessMove move = shuffle[i % shuffle.length];
+            game.makeMove(move);
+            gameDAO.appendMove(gameID, game, move);
+        }
+
+        ChessGame retrieved = gameDAO.getGame(gameID).game();
+        assertEquals(game.getPly(), retrieved.getPly(), "Ply count should match after replay");
+        assertEquals(game.getBoard(), retrieved.getBoard(), "Board should match after replay");
+        assertEquals(game.getTeamTurn(), retrieved.getTeamTurn(), "Turn should match after replay");
+    }
+
+    @Test
+    void appendMoveNegativeDuplicatePly() throws DataAccessException, InvalidMoveException {
+        int gameID = gameDAO.createGame("Logged Game");
+        ChessGame game = gameDAO.getGame(gameID).game();
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        game.makeMove(move);
+        gameDAO.appendMove(gameID, game, move);
+
+        assertThrows(DataAccessException.class, () -> gameDAO.appendMove(gameID, game, move));
+    }
+
+    @Test
+    void backfillGameOverMarksGamesFinishedInTheMoveLog() throws Exception {
+        int finishedID = gameDAO.createGame("Fool's Mate");
+        int openID = gameDAO.createGame("Still Going");
+        ChessGame game = gameDAO.getGame(finishedID).game();
+        ChessMove[] foolsMate = {
+                new ChessMove(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null),
+                new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null),
+                new ChessMove(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null),
+                new ChessMove(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null)
+        };
+        for (ChessMove move : foolsMate) {
+            game.makeMove(move);
+            gameDAO.appendMove(finishedID, game, move);
+        }
+
+        // as a table looks right after the column is added, with the mate only in the log
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE games SET gameOver = FALSE");
+            GameDAO.backfillGameOver(conn);
+        }
+
+        List<GameSummary> games = gameDAO.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10);
+        assertEquals(GameSummary.Status.OVER,
+                games.stream().filter(g -> g.gameID() == finishedID).findFirst().orElseThrow().status());
+        assertEquals(GameSummary.Status.WAITING,
+                games.stream().filter(g -> g.gameID() == openID).findFirst().orElseThrow().status());
+    }
+
     @Test
     void clearPositive() throws DataAccessException {
         gameDAO.createGame("Game A");
         gameDAO.createGame("Game B");
         gameDAO.clear();
 
-        List<GameData> games = gameDAO.getAllGames();
+        List<GameSummary> games = gameDAO.listGameSummaries(GameDAO.GameFilter.ALL, null, 0, 10);
         assertEquals(0, games.size(), "Games table should be empty after clearing");
     }
 }
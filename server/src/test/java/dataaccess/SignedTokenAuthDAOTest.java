@@ -0,0 +1,97 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+class SignedTokenAuthDAOTest {
+
+    private SignedTokenAuthDAO authDAO;
+
+    @BeforeEach
+    void setUp() {
+        authDAO = new SignedTokenAuthDAO(TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Test
+    void getAuthPositiveIssuedTokenIsValid() {
+        AuthData issued = authDAO.createAuth("player.one");
+
+        AuthData checked = authDAO.getAuth(issued.authToken());
+        assertNotNull(checked);
+        assertEquals("player.one", checked.username());
+    }
+
+    @Test
+    void getAuthNegativeTamperedTokenIsRejected() {
+        String token = authDAO.createAuth("alice").authToken();
+        String forged = new SignedTokenAuthDAO(TimeUnit.HOURS.toMillis(1)).createAuth("alice").authToken();
+        String[] parts = token.split("\\.");
+
+        assertNull(authDAO.getAuth(forged), "A token signed with another key must be rejected");
+        assertNull(authDAO.getAuth(parts[0] + "." + (Long.parseLong(parts[1]) + 1) + "." + parts[2] + "." + parts[3]));
+        assertNull(authDAO.getAuth("not-a-token"));
+        assertNull(authDAO.getAuth("a.b.c.d"));
+        assertNull(authDAO.getAuth(null));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        authDAO = new SignedTokenAuthDAO(0);
+
+        assertNull(authDAO.getAuth(authDAO.createAuth("alice").authToken()));
+    }
+
+    @Test
+    void deleteAuthRevokesOnlyThatToken() {
+        String loggedOut = authDAO.createAuth("alice").authToken();
+        String stillIn = authDAO.createAuth("bob").authToken();
+
+        authDAO.deleteAuth(loggedOut);
+
+        assertNull(authDAO.getAuth(loggedOut));
+        assertNotNull(authDAO.getAuth(stillIn));
+        assertEquals(1, authDAO.revokedCount());
+    }
+
+    @Test
+    void clearInvalidatesEveryIssuedToken() {
+        String token = authDAO.createAuth("alice").authToken();
+
+        authDAO.clear();
+
+        assertNull(authDAO.getAuth(token));
+        assertNotNull(authDAO.getAuth(authDAO.createAuth("alice").authToken()));
+    }
+
+    @Test
+    void clearKeepsTheConfiguredKey() {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) 7);
+        SignedTokenAuthDAO issuer = new SignedTokenAuthDAO(key, TimeUnit.HOURS.toMillis(1));
+        SignedTokenAuthDAO checker = new SignedTokenAuthDAO(key, TimeUnit.HOURS.toMillis(1));
+        issuer.clear();
+        checker.clear();
+
+        assertNotNull(checker.getAuth(issuer.createAuth("alice").authToken()));
+    }
+
+    @Test
+    void clearedTokenCannotBeMovedToTheNewGeneration() {
+        String token = authDAO.createAuth("alice").authToken();
+        authDAO.clear();
+
+        String[] parts = token.split("\\.");
+        String bumped = parts[0] + "." + parts[1] + "." + (Long.parseLong(parts[2]) + 1) + "." + parts[3];
+        assertNull(authDAO.getAuth(bumped), "The generation is covered by the signature");
+    }
+
+    @Test
+    void shortKeyIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new SignedTokenAuthDAO(new byte[16], 1000));
+    }
+}
@@ -80,12 +80,36 @@ public class ListGamesHandlerTest {
         assertEquals(gson.toJson(Map.of("message", "Error: Unauthorized")), jsonResponse);
     }
 
+    @Test
+    void limitAboveMaximumIsCutDown() {
+        int[] asked = new int[1];
+        handler = new ListGamesHandler(new GameService(gameDAO, authDAO) {
+            @Override
+            public GamePage listGameSummaries(String authToken, GameDAO.GameFilter filter, int afterGameID, int limit) {
+                asked[0] = limit;
+                return new GamePage(List.of(), null);
+            }
+        });
+        FakeResponse res = new FakeResponse();
+
+        handler.handle(new FakeRequest("token", Map.of("limit", "2000000000")), res);
+
+        assertEquals(200, res.getStatusCode());
+        assertEquals(GameService.MAX_PAGE_SIZE, asked[0]);
+    }
+
     //fake request
     static class FakeRequest extends Request {
         private final String authToken;
+        private final Map<String, String> params;
 
         FakeRequest(String authToken) {
+            this(authToken, Map.of());
+        }
+
+        FakeRequest(String authToken, Map<String, String> params) {
             this.authToken = authToken;
+            this.params = params;
         }
 
         @Override
@@ -95,6 +119,11 @@ public class ListGamesHandlerTest {
             }
             return null;
         }
+
+        @Override
+        public String queryParams(String queryParam) {
+            return params.get(queryParam);
+        }
     }
 
     //fake response
@@ -0,0 +1,59 @@
+package service;
+
+import com.google.gson.Gson;
+import dataaccess.AuthDAO;
+import dataaccess.CachingAuthDAO;
+import dataaccess.ConnectionPool;
+import dataaccess.DataAccessException;
+import dataaccess.GameDAO;
+import handler.MetricsHandler;
+import handler.WebSocketHandler;
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+class MetricsHandlerTest {
+
+    // token store that knows one token and never touches the database
+    private static class FakeStore extends AuthDAO {
+        @Override
+        public AuthData getAuth(String authToken) {
+            return "known".equals(authToken) ? new AuthData(authToken, "user") : null;
+        }
+    }
+
+    private WebSocketHandler webSocketHandler;
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        webSocketHandler.shutdown();
+        passwordHasher.close();
+    }
+
+    @Test
+    void reportsEveryComponent() throws DataAccessException {
+        CachingAuthDAO authDAO = new CachingAuthDAO(new FakeStore());
+        authDAO.getAuth("known");
+        authDAO.getAuth("known");
+        webSocketHandler = new WebSocketHandler(new GameDAO(), authDAO, WebSocketHandler.DEFAULT_REVALIDATE_MILLIS);
+        passwordHasher = new PasswordHasher(4, 1, 1);
+        ListGamesHandlerTest.FakeResponse res = new ListGamesHandlerTest.FakeResponse();
+
+        String json = (String) new MetricsHandler(
+                () -> new ConnectionPool.Stats(2, 1, 1, 0, 10, 2, 0, 0, 0, 5), webSocketHandler, authDAO, passwordHasher)
+                .handle(new ListGamesHandlerTest.FakeRequest(null), res);
+
+        Map<?, ?> metrics = new Gson().fromJson(json, Map.class);
+        assertEquals(200, res.getStatusCode());
+        assertTrue(metrics.keySet().containsAll(List.of("databasePool", "webSocket", "authCache", "passwordHasher")));
+        Map<?, ?> authCache = (Map<?, ?>) metrics.get("authCache");
+        assertEquals(1.0, authCache.get("hits"));
+        assertEquals(0.5, authCache.get("hitRate"));
+        assertEquals(10.0, ((Map<?, ?>) metrics.get("databasePool")).get("borrowed"));
+    }
+}
@@ -0,0 +1,54 @@
+package service;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.function.BooleanSupplier;
+
+class PasswordHasherTest {
+
+    @Test
+    void hashThenCheckPositive() {
+        try (PasswordHasher hasher = new PasswordHasher(4, 1, 1)) {
+            String hash = hasher.hash("secret");
+
+            assertTrue(hash.startsWith("$2a$04$"), "Cost should be the configured one");
+            assertTrue(hasher.check("secret", hash));
+            assertEquals(2, hasher.stats().completed());
+        }
+    }
+
+    @Test
+    void checkNegativeWrongPassword() {
+        try (PasswordHasher hasher = new PasswordHasher(4, 1, 1)) {
+            assertFalse(hasher.check("wrong", hasher.hash("secret")));
+        }
+    }
+
+    @Test
+    void fullQueueIsRejectedAtOnce() throws InterruptedException {
+        try (PasswordHasher hasher = new PasswordHasher(14, 1, 1)) {
+            Thread running = new Thread(() -> hasher.hash("first"));
+            running.start();
+            waitFor(() -> hasher.stats().active() == 1);
+            Thread waiting = new Thread(() -> hasher.hash("second"));
+            waiting.start();
+            waitFor(() -> hasher.stats().queued() == 1);
+
+            assertThrows(PasswordHasher.BusyException.class, () -> hasher.hash("third"));
+            assertEquals(1, hasher.stats().rejected());
+
+            running.join();
+            waiting.join();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the hasher");
+            Thread.sleep(1);
+        }
+    }
+}
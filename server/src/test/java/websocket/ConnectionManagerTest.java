@@ -0,0 +1,289 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import com.google.gson.Gson;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import websocket.messages.Connection;
+import org.junit.jupiter.api.*;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+class ConnectionManagerTest {
+
+    private ConnectionManager connectionManager;
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = new ConnectionManager();
+    }
+
+    // open session that keeps every message sent to it
+    private static Session recordingSession(List<String> received) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        received.add((String) args[0]);
+                        if (args.length == 2) {
+                            ((WriteCallback) args[1]).writeSuccess();
+                        }
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    // open session whose first write never completes, like a client that stopped reading
+    private static Session stalledSession(List<String> received, List<Integer> closeCodes) {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        received.add((String) args[0]);
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> closeCodes.isEmpty();
+                    case "getRemote" -> remote;
+                    case "close" -> {
+                        closeCodes.add(args == null || args.length == 0 ? StatusCode.NORMAL : (Integer) args[0]);
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @Test
+    void broadcastReachesOnlyThatGame() throws IOException {
+        List<String> inGame = new ArrayList<>();
+        List<String> otherGame = new ArrayList<>();
+        connectionManager.add("white", recordingSession(inGame), 1);
+        connectionManager.add("black", recordingSession(inGame), 1);
+        connectionManager.add("elsewhere", recordingSession(otherGame), 2);
+
+        connectionManager.broadcastToGame(1, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "hi"));
+
+        assertEquals(2, inGame.size());
+        assertTrue(otherGame.isEmpty());
+        assertEquals(2, connectionManager.getConnectionsInGame(1).size());
+    }
+
+    @Test
+    void removeTakesConnectionOutOfItsGame() {
+        Session session = recordingSession(new ArrayList<>());
+        connectionManager.add("white", session, 1);
+
+        assertNotNull(connectionManager.remove(session));
+
+        assertTrue(connectionManager.getConnectionsInGame(1).isEmpty());
+        assertTrue(connectionManager.getConnections("white").isEmpty());
+        assertNull(connectionManager.getConnection(session));
+        assertNull(connectionManager.remove(session));
+    }
+
+    @Test
+    void sameSessionConnectingAgainMovesToTheNewGame() {
+        Session session = recordingSession(new ArrayList<>());
+        connectionManager.add("white", session, 1);
+        connectionManager.add("white", session, 2);
+
+        assertTrue(connectionManager.getConnectionsInGame(1).isEmpty());
+        assertEquals(1, connectionManager.getConnectionsInGame(2).size());
+        assertEquals(1, connectionManager.getConnections("white").size());
+    }
+
+    @Test
+    void userCanFollowSeveralGamesAtOnce() throws IOException {
+        List<String> boardOne = new ArrayList<>();
+        List<String> boardTwo = new ArrayList<>();
+        Session first = recordingSession(boardOne);
+        connectionManager.add("observer", first, 1);
+        connectionManager.add("observer", recordingSession(boardTwo), 2);
+
+        connectionManager.broadcastToGame(2, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "move"));
+
+        assertTrue(boardOne.isEmpty(), "Board one should not get board two's moves");
+        assertEquals(1, boardTwo.size());
+        assertEquals(2, connectionManager.getConnections("observer").size());
+
+        connectionManager.remove(first);
+        assertEquals(1, connectionManager.getConnections("observer").size());
+        assertEquals(1, connectionManager.getConnectionsInGame(2).size());
+    }
+
+    @Test
+    void broadcastExceptSkipsOnlyThatSession() throws IOException {
+        List<String> phone = new ArrayList<>();
+        List<String> laptop = new ArrayList<>();
+        Session mover = recordingSession(phone);
+        connectionManager.add("white", mover, 1);
+        connectionManager.add("white", recordingSession(laptop), 1);
+
+        connectionManager.broadcastToGameExcept(mover, 1,
+                new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "white moved"));
+
+        assertTrue(phone.isEmpty());
+        assertEquals(1, laptop.size(), "The mover's other device should still be told");
+    }
+
+    @Test
+    void queuedBoardIsReplacedByNewerBoard() throws IOException {
+        List<String> received = new ArrayList<>();
+        connectionManager.add("slow", stalledSession(received, new ArrayList<>()), 1);
+
+        connectionManager.broadcastToGame(1, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "first"));
+        for (int i = 0; i < 3; i++) {
+            connectionManager.broadcastToGame(1, new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME));
+        }
+        connectionManager.broadcastToGame(1, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "last"));
+
+        assertEquals(1, received.size(), "Only one write should be in flight");
+        SendMetrics.Snapshot stats = connectionManager.getSendStats();
+        assertEquals(2, stats.queuedFrames(), "One board and the last notification should wait");
+        assertEquals(2, stats.replacedFrames());
+    }
+
+    @Test
+    void clientThatStopsReadingIsDisconnected() throws IOException {
+        List<Integer> closeCodes = new ArrayList<>();
+        List<String> fast = new ArrayList<>();
+        connectionManager.add("slow", stalledSession(new ArrayList<>(), closeCodes), 1);
+        connectionManager.add("fast", recordingSession(fast), 1);
+
+        int broadcasts = Connection.MAX_QUEUED_FRAMES + 2;
+        for (int i = 0; i < broadcasts; i++) {
+            connectionManager.broadcastToGame(1, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "n" + i));
+        }
+
+        assertEquals(List.of(StatusCode.POLICY_VIOLATION), closeCodes);
+        assertEquals(broadcasts, fast.size(), "A slow client should not hold up the others");
+        assertEquals(1, connectionManager.getSendStats().slowConsumerDisconnects());
+    }
+
+    @Test
+    void moveIsSentAsDeltaOnlyToSessionsThatAskedForIt() {
+        List<String> deltaClient = new ArrayList<>();
+        List<String> boardClient = new ArrayList<>();
+        connectionManager.add("white", recordingSession(deltaClient), 1, true);
+        connectionManager.add("black", recordingSession(boardClient), 1);
+
+        ServerMessage loadGame = new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME);
+        loadGame.setGame(new ChessGame());
+        ChessMove move = new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null);
+        connectionManager.broadcastMove(1, loadGame, new ServerMessage(move, ChessGame.GameStatus.ONGOING, 1));
+
+        Gson gson = new Gson();
+        ServerMessage delta = gson.fromJson(deltaClient.get(0), ServerMessage.class);
+        assertEquals(ServerMessage.ServerMessageType.MOVE_MADE, delta.getServerMessageType());
+        assertEquals(move, delta.getMove());
+        assertEquals(1, delta.getSequence());
+        assertEquals(ServerMessage.ServerMessageType.LOAD_GAME,
+                gson.fromJson(boardClient.get(0), ServerMessage.class).getServerMessageType());
+        assertTrue(deltaClient.get(0).length() < boardClient.get(0).length());
+    }
+
+    @Test
+    void batchSerializesEachMessageOnceAndKeepsOrder() {
+        List<String> mover = new ArrayList<>();
+        List<String> opponent = new ArrayList<>();
+        List<String> observer = new ArrayList<>();
+        Session moverSession = recordingSession(mover);
+        connectionManager.add("white", moverSession, 1);
+        connectionManager.add("black", recordingSession(opponent), 1);
+        connectionManager.add("observer", recordingSession(observer), 1);
+
+        connectionManager.broadcast(1)
+                .toAll(new ServerMessage(ServerMessage.ServerMessageType.LOAD_GAME))
+                .toAllExcept(moverSession, new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "moved"))
+                .toAll(new ServerMessage(ServerMessage.ServerMessageType.NOTIFICATION, "Check!"))
+                .send();
+
+        assertEquals(2, mover.size(), "The mover should not hear about its own move");
+        assertEquals(3, opponent.size());
+        assertTrue(opponent.get(0).contains("LOAD_GAME"));
+        assertTrue(opponent.get(2).contains("Check!"));
+        assertSame(opponent.get(1), observer.get(1), "Recipients should share one serialized frame");
+    }
+
+    @Test
+    void revokingATokenOnlyAffectsSessionsThatUsedIt() {
+        Connection loggedOut = connectionManager.add("white", recordingSession(new ArrayList<>()), 1);
+        Connection otherDevice = connectionManager.add("white", recordingSession(new ArrayList<>()), 1);
+        loggedOut.markVerified("old-token");
+        otherDevice.markVerified("new-token");
+        assertTrue(loggedOut.isVerified("old-token", 60_000));
+        assertFalse(loggedOut.isVerified("new-token", 60_000), "A different token must be checked");
+
+        connectionManager.revoke("old-token");
+
+        assertFalse(loggedOut.isVerified("old-token", 60_000));
+        assertTrue(otherDevice.isVerified("new-token", 60_000));
+        assertFalse(otherDevice.isVerified("new-token", 0), "An expired check must be redone");
+    }
+
+    @Test
+    void reconnectingSessionKeepsUnwrittenFrames() {
+        List<String> received = new ArrayList<>();
+        List<WriteCallback> pending = new ArrayList<>();
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        received.add((String) args[0]);
+                        pending.add((WriteCallback) args[1]);
+                    }
+                    return null;
+                });
+        Session session = (Session) Proxy.newProxyInstance(
+                ConnectionManagerTest.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "isOpen" -> true;
+                    case "getRemote" -> remote;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+
+        Connection first = connectionManager.add("white", session, 1);
+        first.send("one");
+        first.send("two");
+        first.send("three");
+        assertEquals(List.of("one"), received, "Later frames wait for the first write");
+
+        Connection second = connectionManager.add("white", session, 2);
+        assertEquals(List.of("one", "two", "three"), received, "The new connection should write what was left");
+
+        pending.get(0).writeSuccess();
+        first.send("stale");
+        assertEquals(3, received.size(), "The replaced connection should not write any more");
+
+        pending.get(1).writeSuccess();
+        pending.get(2).writeSuccess();
+        second.send("four");
+        assertEquals("four", received.get(3));
+    }
+}
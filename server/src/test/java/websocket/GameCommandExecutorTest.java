@@ -0,0 +1,107 @@
+package websocket;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class GameCommandExecutorTest {
+    private GameCommandExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new GameCommandExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void commandsForOneGameRunInOrderOneAtATime() throws InterruptedException {
+        int commands = 1000;
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(commands);
+
+        for (int i = 0; i < commands; i++) {
+            int index = i;
+            executor.submit(7, () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                order.add(index);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get(), "Two commands for the same game ran at once");
+        for (int i = 0; i < commands; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void differentGamesRunInParallel() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+
+        for (int gameID = 1; gameID <= 2; gameID++) {
+            executor.submit(gameID, () -> {
+                bothStarted.countDown();
+                try {
+                    // only returns if the other game's command is running at the same time
+                    assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failingCommandDoesNotStopTheGame() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(3, () -> {
+            throw new IllegalStateException("expected by the test");
+        });
+        executor.submit(3, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void mailboxIsDroppedWhenIdle() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(5, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.activeGames() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.activeGames());
+    }
+
+    @Test
+    void submitAfterShutdownIsRejectedWithoutQueuing() {
+        executor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> executor.submit(6, () -> { }));
+        assertEquals(0, executor.activeGames(), "A rejected command should not leave a mailbox behind");
+    }
+}
@@ -0,0 +1,172 @@
+package chess;
+
+/**
+ * Precomputed attack sets, built once when the class is loaded.
+ * <p>
+ * Knights, kings and pawns get a plain lookup per square. Bishops and rooks use
+ * magic bitboards: the relevant blockers on a square's rays are masked out of the
+ * occupancy, multiplied by a per-square magic number and shifted down to an index
+ * into a shared attack table, so a slider lookup costs one multiply and one load.
+ * The magics are found at startup with a fixed seed per rank, so every run builds
+ * the same tables.
+ */
+final class AttackTables {
+
+    private static final long NOT_A = ~Bitboards.FILE_A;
+    private static final long NOT_H = ~Bitboards.FILE_H;
+    private static final long NOT_AB = ~(Bitboards.FILE_A | Bitboards.FILE_B);
+    private static final long NOT_GH = ~(Bitboards.FILE_G | Bitboards.FILE_H);
+
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    // seeds that find a full set of magics quickly, one per rank
+    private static final long[] SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    static final long[][] PAWN = new long[2][64];
+
+    // squares strictly between two aligned squares, and the full line through them
+    static final long[][] BETWEEN = new long[64][64];
+    static final long[][] LINE = new long[64][64];
+
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final long[] BISHOP_TABLE = new long[0x1480];
+    private static final long[] ROOK_TABLE = new long[0x19000];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long b = 1L << square;
+            KNIGHT[square] = ((b << 17) & NOT_A) | ((b << 15) & NOT_H)
+                    | ((b << 10) & NOT_AB) | ((b << 6) & NOT_GH)
+                    | ((b >>> 15) & NOT_A) | ((b >>> 17) & NOT_H)
+                    | ((b >>> 6) & NOT_AB) | ((b >>> 10) & NOT_GH);
+            KING[square] = (((b << 1) | (b << 9) | (b >>> 7)) & NOT_A)
+                    | (((b >>> 1) | (b << 7) | (b >>> 9)) & NOT_H)
+                    | (b << 8) | (b >>> 8);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = ((b << 9) & NOT_A) | ((b << 7) & NOT_H);
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = ((b >>> 7) & NOT_A) | ((b >>> 9) & NOT_H);
+        }
+        initMagics(BISHOP_TABLE, BISHOP_MAGICS, BISHOP_DIRECTIONS);
+        initMagics(ROOK_TABLE, ROOK_MAGICS, ROOK_DIRECTIONS);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                long ends = (1L << a) | (1L << b);
+                if (a != b && (rook(a, 0L) & (1L << b)) != 0) {
+                    LINE[a][b] = (rook(a, 0L) & rook(b, 0L)) | ends;
+                    BETWEEN[a][b] = rook(a, 1L << b) & rook(b, 1L << a);
+                }
+                else if (a != b && (bishop(a, 0L) & (1L << b)) != 0) {
+                    LINE[a][b] = (bishop(a, 0L) & bishop(b, 0L)) | ends;
+                    BETWEEN[a][b] = bishop(a, 1L << b) & bishop(b, 1L << a);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    static long bishop(int square, long occupied) {
+        Magic m = BISHOP_MAGICS[square];
+        return BISHOP_TABLE[m.offset + (int) (((occupied & m.mask) * m.magic) >>> m.shift)];
+    }
+
+    static long rook(int square, long occupied) {
+        Magic m = ROOK_MAGICS[square];
+        return ROOK_TABLE[m.offset + (int) (((occupied & m.mask) * m.magic) >>> m.shift)];
+    }
+
+    private record Magic(long mask, long magic, int shift, int offset) {
+    }
+
+    /**
+     * Reference ray walk, only used while building the tables
+     */
+    static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        int startRow = Bitboards.row(square);
+        int startCol = Bitboards.column(square);
+
+        for (int[] dir : directions) {
+            int row = startRow + dir[0];
+            int col = startCol + dir[1];
+
+            while (row >= 0 && row <= 7 && col >= 0 && col <= 7) {
+                long bit = 1L << Bitboards.square(row, col);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static void initMagics(long[] table, Magic[] magics, int[][] directions) {
+        long[] occupancy = new long[4096];
+        long[] reference = new long[4096];
+        int[] epoch = new int[4096];
+        int attempt = 0;
+        int offset = 0;
+
+        for (int square = 0; square < 64; square++) {
+            long rankEdges = (Bitboards.RANK_1 | Bitboards.RANK_8) & ~(Bitboards.RANK_1 << (8 * Bitboards.row(square)));
+            long fileEdges = (Bitboards.FILE_A | Bitboards.FILE_H) & ~(Bitboards.FILE_A << Bitboards.column(square));
+            long mask = slidingAttacks(square, 0L, directions) & ~(rankEdges | fileEdges);
+            int shift = 64 - Long.bitCount(mask);
+
+            // enumerate every subset of the mask (Carry-Rippler) with its true attack set
+            int size = 0;
+            long subset = 0L;
+            do {
+                occupancy[size] = subset;
+                reference[size] = slidingAttacks(square, subset, directions);
+                size++;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+
+            long[] rng = {SEEDS[Bitboards.row(square)]};
+            long magic;
+            boolean found;
+            do {
+                do {
+                    magic = next(rng) & next(rng) & next(rng);
+                } while (Long.bitCount((magic * mask) >>> 56) < 6);
+
+                attempt++;
+                found = true;
+                for (int i = 0; i < size; i++) {
+                    int index = offset + (int) ((occupancy[i] * magic) >>> shift);
+                    int slot = index - offset;
+                    if (epoch[slot] < attempt) {
+                        epoch[slot] = attempt;
+                        table[index] = reference[i];
+                    }
+                    else if (table[index] != reference[i]) {
+                        found = false;
+                        break;
+                    }
+                }
+            } while (!found);
+
+            magics[square] = new Magic(mask, magic, shift, offset);
+            offset += size;
+        }
+    }
+
+    // xorshift64*, state kept in a one element array
+    private static long next(long[] state) {
+        long s = state[0];
+        s ^= s >>> 12;
+        s ^= s << 25;
+        s ^= s >>> 27;
+        state[0] = s;
+        return s * 2685821657736338717L;
+    }
+}
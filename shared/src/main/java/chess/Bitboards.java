@@ -0,0 +1,149 @@
+package chess;
+
+/**
+ * Bit-level helpers for the bitboard representation used by {@link ChessBoard}.
+ * <p>
+ * Squares are numbered 0-63 with a1 = 0, h1 = 7 and h8 = 63, so a square index
+ * is {@code row * 8 + column} using the zero based values returned by
+ * {@link ChessPosition#getRow()} and {@link ChessPosition#getColumn()}.
+ * Attack sets come from the lookup tables in {@link AttackTables}.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static int column(int square) {
+        return square & 7;
+    }
+
+    public static long knightAttacks(int square) {
+        return AttackTables.KNIGHT[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return AttackTables.KING[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square attacks
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return AttackTables.PAWN[color.ordinal()][square];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return AttackTables.bishop(square, occupied);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return AttackTables.rook(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return AttackTables.bishop(square, occupied) | AttackTables.rook(square, occupied);
+    }
+
+    /**
+     * Squares attacked by a piece of the given type and color, ignoring what is on them
+     */
+    public static long attacks(ChessGame.TeamColor color, ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> kingAttacks(square);
+            case QUEEN -> queenAttacks(square, occupied);
+            case BISHOP -> bishopAttacks(square, occupied);
+            case KNIGHT -> knightAttacks(square);
+            case ROOK -> rookAttacks(square, occupied);
+            case PAWN -> pawnAttacks(color, square);
+        };
+    }
+
+    /**
+     * Pseudo-legal destination squares for a piece of the given type and color on square.
+     * Pawns get their pushes and diagonal captures; everything else gets its attacks
+     * minus squares holding a friendly piece.
+     */
+    public static long targets(ChessBoard board, ChessGame.TeamColor color, ChessPiece.PieceType type, int square) {
+        long own = board.getPieces(color);
+        long occupied = board.getOccupied();
+
+        if (type != ChessPiece.PieceType.PAWN) {
+            return attacks(color, type, square, occupied) & ~own;
+        }
+
+        long enemy = occupied & ~own;
+        long empty = ~occupied;
+        long b = 1L << square;
+        long pushes;
+        if (color == ChessGame.TeamColor.WHITE) {
+            long single = (b << 8) & empty;
+            pushes = single | (((single & (RANK_2 << 8)) << 8) & empty);
+        }
+        else {
+            long single = (b >>> 8) & empty;
+            pushes = single | (((single & (RANK_7 >>> 8)) >>> 8) & empty);
+        }
+        return pushes | (pawnAttacks(color, square) & enemy);
+    }
+
+    /**
+     * @return True if any piece of the attacking team attacks square on this board
+     */
+    public static boolean isSquareAttacked(ChessBoard board, int square, ChessGame.TeamColor attacker) {
+        long occupied = board.getOccupied();
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+
+        if ((pawnAttacks(defender, square) & board.getPieces(attacker, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((knightAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((kingAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.getPieces(attacker, ChessPiece.PieceType.QUEEN);
+        long diagonal = board.getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens;
+        if (diagonal != 0 && (bishopAttacks(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = board.getPieces(attacker, ChessPiece.PieceType.ROOK) | queens;
+        return straight != 0 && (rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    /**
+     * @return every piece of the attacking team that attacks square, treating
+     * occupied as the set of blockers
+     */
+    public static long attackersTo(ChessBoard board, int square, long occupied, ChessGame.TeamColor attacker) {
+        ChessGame.TeamColor defender = attacker == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        long queens = board.getPieces(attacker, ChessPiece.PieceType.QUEEN);
+
+        return (pawnAttacks(defender, square) & board.getPieces(attacker, ChessPiece.PieceType.PAWN))
+                | (knightAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KNIGHT))
+                | (kingAttacks(square) & board.getPieces(attacker, ChessPiece.PieceType.KING))
+                | (bishopAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.BISHOP) | queens))
+                | (rookAttacks(square, occupied) & (board.getPieces(attacker, ChessPiece.PieceType.ROOK) | queens));
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -10,7 +9,28 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessBoard {
-    private ChessPiece[][] squares = new ChessPiece[8][8];
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+    // FEN letter for each piece index
+    static final String SYMBOLS = "KQBNRPkqbnrp";
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[pieceIndex(color, type)] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    // one board per color/type pair, indexed by pieceIndex, plus occupancy per color
+    private long[] pieceBoards = new long[12];
+    private long[] colorBoards = new long[2];
+    private long occupied;
+
+    // Zobrist key of the piece placement. Not serialized; rebuilt from the
+    // bitboards the first time it is needed after the board is loaded.
+    private transient long key;
+    private transient boolean keyValid;
+
     public ChessBoard() {
         
     }
@@ -25,19 +45,26 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return getZobristKey() == that.getZobristKey() && Arrays.equals(pieceBoards, that.pieceBoards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
     public String toString() {
-        return "ChessBoard{" +
-                "squares=" + Arrays.toString(squares) +
-                '}';
+        StringBuilder text = new StringBuilder("ChessBoard{\n");
+        for (int row = 7; row >= 0; row--) {
+            text.append('|');
+            for (int col = 0; col < 8; col++) {
+                int index = pieceIndexAt(Bitboards.square(row, col));
+                text.append(index < 0 ? ' ' : SYMBOLS.charAt(index)).append('|');
+            }
+            text.append('\n');
+        }
+        return text.append('}').toString();
     }
 
     /**
@@ -47,7 +74,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()][position.getColumn()] = piece;
+        int square = squareOf(position);
+        clearSquare(square);
+        if (piece != null) {
+            setSquare(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -58,7 +89,8 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow()][position.getColumn()];
+        int index = pieceIndexAt(squareOf(position));
+        return index < 0 ? null : PIECES[index];
     }
 
     /**
@@ -66,56 +98,159 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-         squares = new  ChessPiece[8][8];
+        Arrays.fill(pieceBoards, 0L);
+        Arrays.fill(colorBoards, 0L);
+        occupied = 0L;
+        key = 0L;
+        keyValid = true;
 
         //pawns
         for (int col = 0; col < 8; col++) {
-            squares[1][col] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-            squares[6][col] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+            place(1, col, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            place(6, col, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
         }
 
         //rooks
-        squares[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        place(0, 0, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        place(0, 7, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        place(7, 0, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        place(7, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
 
         //knights
-        squares[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        place(0, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        place(0, 6, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
+        place(7, 1, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
+        place(7, 6, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
 
         //bishops
-        squares[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        place(0, 2, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        place(0, 5, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
+        place(7, 2, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
+        place(7, 5, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
 
         //queens
-        squares[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        place(0, 3, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+        place(7, 3, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
 
         //kings
-        squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        place(0, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        place(7, 4, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
 
 
         // part 1 don't know why I didn't have 8 commits
         // part 2 don't know why I didn't have 8 commits
     }
 
+    private void place(int row, int col, ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        setSquare(Bitboards.square(row, col), pieceIndex(color, type));
+    }
+
     public ChessBoard deepCopy() {
         ChessBoard copy = new ChessBoard();
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPiece piece = this.getPiece(new ChessPosition(row, col));
-                if (piece != null) {
-                    copy.addPiece(new ChessPosition(row, col), new ChessPiece(piece.getTeamColor(), piece.getPieceType()));
+        copy.pieceBoards = pieceBoards.clone();
+        copy.colorBoards = colorBoards.clone();
+        copy.occupied = occupied;
+        copy.key = key;
+        copy.keyValid = keyValid;
+        return copy;
+    }
+
+    /**
+     * @return bitboard of every piece of the given color and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieceBoards[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every piece of the given color
+     */
+    public long getPieces(ChessGame.TeamColor color) {
+        return colorBoards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, kept up to date as pieces
+     * are added, removed and moved
+     */
+    public long getZobristKey() {
+        if (!keyValid) {
+            long fresh = 0L;
+            for (int index = 0; index < pieceBoards.length; index++) {
+                long pieces = pieceBoards[index];
+                while (pieces != 0) {
+                    fresh ^= Zobrist.PIECE_SQUARE[index][Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
                 }
             }
+            key = fresh;
+            keyValid = true;
         }
-        return copy;
+        return key;
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static ChessPiece pieceFor(int index) {
+        return PIECES[index];
+    }
+
+    static int squareOf(ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 0 || row > 7 || col < 0 || col > 7) {
+            throw new IllegalArgumentException("Position is off the board: " + position);
+        }
+        return Bitboards.square(row, col);
+    }
+
+    /**
+     * @return the pieceIndex of whatever is on square, or -1 if it is empty
+     */
+    int pieceIndexAt(int square) {
+        long bit = 1L << square;
+        if ((occupied & bit) == 0) {
+            return -1;
+        }
+        int base = (colorBoards[0] & bit) != 0 ? 0 : 6;
+        for (int type = 0; type < 6; type++) {
+            if ((pieceBoards[base + type] & bit) != 0) {
+                return base + type;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Puts a piece on an empty square
+     */
+    void setSquare(int square, int index) {
+        long bit = 1L << square;
+        pieceBoards[index] |= bit;
+        colorBoards[index / 6] |= bit;
+        occupied |= bit;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
+    }
+
+    void clearSquare(int square) {
+        int index = pieceIndexAt(square);
+        if (index < 0) {
+            return;
+        }
+        long keep = ~(1L << square);
+        pieceBoards[index] &= keep;
+        colorBoards[index / 6] &= keep;
+        occupied &= keep;
+        key ^= Zobrist.PIECE_SQUARE[index][square];
     }
 
 }
@@ -1,8 +1,8 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -18,6 +18,20 @@ public class ChessGame {
 
     private boolean over;
 
+    // half-moves played since the start, so a stored move log can be numbered
+    private int ply;
+
+    // undo records for makeMove/unmakeMove; runtime only, never serialized
+    private transient int[] undoStack = new int[64];
+    private transient int undoCount;
+    private transient MoveList moveBuffer = new MoveList();
+
+    // status of the position it was worked out for; recomputed when the key or the
+    // game over flag no longer match, so edits made through getBoard() are noticed
+    private transient GameStatus status;
+    private transient long statusKey;
+    private transient boolean statusOver;
+
     public ChessGame() {
 // adding turn
         turn = TeamColor.WHITE;
@@ -46,6 +60,26 @@ public class ChessGame {
     }
 
 
+    /**
+     * @return a 64-bit Zobrist key identifying this position: the piece placement
+     * and the team to move. Suitable for caching, repetition checks and dedup keys.
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey();
+        return turn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * @return how many half-moves have been made in this game
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    void setPly(int ply) {
+        this.ply = ply;
+    }
+
     public boolean getGameOver() {
         return over;
     }
@@ -54,6 +88,14 @@ public class ChessGame {
         this.over = over;
     }
 
+    /**
+     * Ends the game with the current position standing, as when a player resigns
+     */
+    public void resign() {
+        over = true;
+        cacheStatus(GameStatus.RESIGNED);
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -62,6 +104,29 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Where the game stands after the last move. CHECK means the team to move is in
+     * check; CHECKMATE and STALEMATE refer to the team that was left without a move.
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        RESIGNED
+    }
+
+    /**
+     * @return the status worked out by the last makeMove, or derived from the
+     * position if the game was loaded or changed since
+     */
+    public GameStatus getStatus() {
+        if (status == null || statusOver != over || statusKey != getZobristKey()) {
+            cacheStatus(computeStatus());
+        }
+        return status;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -76,17 +141,9 @@ public class ChessGame {
             return new ArrayList<>();
         }
 
-        Collection<ChessMove> realMoves = piece.pieceMoves(board, startPosition);
-        Collection<ChessMove> validMoves = new ArrayList<>();
-
-
-        for (ChessMove move : realMoves){
-            if (isLegalMove(startPosition, move)){
-                validMoves.add(move);
-            }
-
-        }
-        return validMoves;
+        int from = ChessBoard.squareOf(startPosition);
+        MoveGenerator.legalMoves(board, piece.getTeamColor(), 1L << from, moveBuffer);
+        return moveBuffer.toChessMoves();
     }
 
     /**
@@ -97,15 +154,10 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         if (over) {
-            TeamColor opponent = getOtherColor(turn);
-            if (isInStalemate(opponent)) {
-                throw new InvalidMoveException("The game is already over due to Stalemate.");
-            }
-            else if (isInCheckmate(opponent)) {
-                throw new InvalidMoveException("The game is already over due to Checkmate.");
-            }
-            else {
-                throw new InvalidMoveException("The game is already over.");
+            switch (getStatus()) {
+                case STALEMATE -> throw new InvalidMoveException("The game is already over due to Stalemate.");
+                case CHECKMATE -> throw new InvalidMoveException("The game is already over due to Checkmate.");
+                default -> throw new InvalidMoveException("The game is already over.");
             }
         }
 
@@ -121,36 +173,32 @@ public class ChessGame {
             throw new InvalidMoveException("This isn't your turn.");
         }
 
-        var validMoves = piece.pieceMoves(board, startPosition);
-
-        if (!validMoves.contains(move)) {
-            throw new InvalidMoveException("That move is not allowed.");
-        }
-
-        ChessPiece captured = board.getPiece(endPosition);
-        board.addPiece(endPosition, piece);
-        board.addPiece(startPosition, null);
-
-        boolean check = isInCheck(turn);
-
-        board.addPiece(startPosition, piece);
-        board.addPiece(endPosition, captured);
-
-        if (check){
+        int requested = PackedMove.fromChessMove(move);
+        int from = PackedMove.from(requested);
+        int to = PackedMove.to(requested);
+
+        MoveGenerator.legalMoves(board, turn, 1L << from, moveBuffer);
+        if (!moveBuffer.contains(requested)) {
+            // only work out why on the failure path
+            if (!piece.pieceMoves(board, startPosition).contains(move)) {
+                if (piece.getPieceType() == ChessPiece.PieceType.PAWN && move.getPromotionPiece() == null
+                        && (endPosition.getRow() == 0 || endPosition.getRow() == 7)) {
+                    throw new InvalidMoveException("Pawn needs to be promoted.");
+                }
+                throw new InvalidMoveException("That move is not allowed.");
+            }
             throw new InvalidMoveException("Move keeps King in check.");
         }
 
-        board.addPiece(endPosition, piece);
-        board.addPiece(startPosition, null);
+        int placed = move.getPromotionPiece() == null
+                ? ChessBoard.pieceIndex(turn, piece.getPieceType())
+                : ChessBoard.pieceIndex(turn, move.getPromotionPiece());
 
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN && (endPosition.getRow() == 0 || endPosition.getRow() == 7)) {
-            if (move.getPromotionPiece() == null) {
-                throw new InvalidMoveException("Pawn needs to be promoted.");
-            }
-            board.addPiece(endPosition, new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-        }
+        pushUndo(applyMove(from, to, placed));
+        ply++;
 
-        if (isInCheckmate(getOtherColor(turn)) || isInStalemate(getOtherColor(turn))) {
+        GameStatus after = statusFor(getOtherColor(turn));
+        if (after == GameStatus.CHECKMATE || after == GameStatus.STALEMATE) {
             over = true;
         } else {
             if (turn == TeamColor.WHITE) {
@@ -160,97 +208,155 @@ public class ChessGame {
                 turn = TeamColor.WHITE;
             }
         }
-
+        cacheStatus(after);
     }
 
     /**
-     * Determines if the given team is in check
+     * Takes back the last move made with {@link #makeMove(ChessMove)}, restoring the
+     * board, the team whose turn it was and the game over flag
      *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * @throws IllegalStateException if there is no move to take back
      */
-
-    private ChessPosition findKing(TeamColor teamColor){
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                ChessPosition position = new ChessPosition(row + 1, col + 1);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && piece.getTeamColor() == teamColor){
-                    return position;
-                }
-            }
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("There is no move to undo.");
         }
-        return  null;
+        int record = undoStack[--undoCount];
+        undoMove(record);
+        ply--;
+        turn = (record & UNDO_BLACK_TO_MOVE) != 0 ? TeamColor.BLACK : TeamColor.WHITE;
+        over = (record & UNDO_WAS_OVER) != 0;
     }
 
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition king = findKing(teamColor);
-        if (king == null) {
-            throw new RuntimeException("King is not found.");
-        }
-
-
-        TeamColor otherColor;
-
-        if (teamColor == TeamColor.WHITE) {
-            otherColor = TeamColor.BLACK;
-        }
-        else
-        {
-            otherColor = TeamColor.WHITE;
-        }
-
-        for (int row = 0; row < 8; row++){
-            for (int col = 0; col < 8; col++){
-                ChessPosition position = new ChessPosition(row + 1, col + 1);
-                ChessPiece piece = board.getPiece(position);
-                if (piece != null && piece.getTeamColor() == otherColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(board, position);
-                    for (ChessMove move : moves) {
-                        if (move.getEndPosition().equals(king)) {
-                            return true;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+    /**
+     * Replaces the contents of moves with the legal moves of the team to move
+     */
+    void legalMoves(MoveList moves) {
+        MoveGenerator.legalMoves(board, turn, moves);
     }
 
-    private boolean isLegalMove(ChessPosition startPosition, ChessMove move){
-        ChessPiece piece = board.getPiece(startPosition);
-        if (piece == null) {
-            return false;
-        }
+    /**
+     * Plays a packed move taken from legalMoves without validating it or checking for
+     * the end of the game. unmakeMove takes it back.
+     */
+    void playMove(int move) {
+        int from = PackedMove.from(move);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        int placed = promotion == null ? board.pieceIndexAt(from) : ChessBoard.pieceIndex(turn, promotion);
+
+        pushUndo(applyMove(from, PackedMove.to(move), placed));
+        ply++;
+        turn = getOtherColor(turn);
+    }
 
+    /*
+     * An undo record is a single int:
+     * bits 0-5 from square, 6-11 to square, 12-15 moved piece index,
+     * 16-19 captured piece index + 1 (0 when nothing was captured),
+     * bit 20 black was to move, bit 21 the game was already over.
+     */
+    private static final int UNDO_BLACK_TO_MOVE = 1 << 20;
+    private static final int UNDO_WAS_OVER = 1 << 21;
 
+    /**
+     * Moves whatever is on from to to, replacing it with placed (the same piece, or
+     * the promotion piece), and returns the record undoMove needs to reverse it
+     */
+    private int applyMove(int from, int to, int placed) {
+        int moved = board.pieceIndexAt(from);
+        int captured = board.pieceIndexAt(to);
 
-        ChessPosition endPosition = move.getEndPosition();
-        ChessPiece captured = board.getPiece(endPosition);
+        board.clearSquare(from);
+        board.clearSquare(to);
+        board.setSquare(to, placed);
 
-        Collection<ChessMove> potentialMoves = piece.pieceMoves(board, startPosition);
-        if (!potentialMoves.contains(move)) {
-            return false;
-        }
+        return from | (to << 6) | (moved << 12) | ((captured + 1) << 16);
+    }
 
-        board.addPiece(endPosition, piece);
-        board.addPiece(startPosition, null);
+    private void undoMove(int record) {
+        int from = record & 0x3F;
+        int to = (record >>> 6) & 0x3F;
+        int moved = (record >>> 12) & 0xF;
+        int captured = ((record >>> 16) & 0xF) - 1;
 
+        board.clearSquare(to);
+        if (captured >= 0) {
+            board.setSquare(to, captured);
+        }
+        board.setSquare(from, moved);
+    }
 
+    private void pushUndo(int record) {
+        if (turn == TeamColor.BLACK) {
+            record |= UNDO_BLACK_TO_MOVE;
+        }
+        if (over) {
+            record |= UNDO_WAS_OVER;
+        }
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+        }
+        undoStack[undoCount++] = record;
+    }
 
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        long king = board.getPieces(teamColor, ChessPiece.PieceType.KING);
+        if (king == 0) {
+            throw new RuntimeException("King is not found.");
+        }
 
-        boolean ifInCheck = isInCheck(piece.getTeamColor());
+        return Bitboards.isSquareAttacked(board, Long.numberOfTrailingZeros(king), getOtherColor(teamColor));
+    }
 
-        board.addPiece(startPosition, piece);
-        board.addPiece(endPosition, captured);
+    /**
+     * Status of the position from the given team's side, using one legal move
+     * enumeration. A board without that team's king counts as not in check.
+     */
+    private GameStatus statusFor(TeamColor teamColor) {
+        boolean check = isKingAttacked(teamColor);
+        if (hasLegalMove(teamColor)) {
+            return check ? GameStatus.CHECK : GameStatus.ONGOING;
+        }
+        return check ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+    }
 
-        if (ifInCheck) {
-            return false;
+    /**
+     * Works the status out from scratch. A finished game keeps the turn of the team
+     * that made the last move, so the team that got mated or stalemated is the other
+     * one; a game that ended any other way was resigned.
+     */
+    private GameStatus computeStatus() {
+        if (!over) {
+            return isKingAttacked(turn) ? GameStatus.CHECK : GameStatus.ONGOING;
         }
+        GameStatus last = statusFor(getOtherColor(turn));
+        return last == GameStatus.CHECKMATE || last == GameStatus.STALEMATE ? last : GameStatus.RESIGNED;
+    }
 
+    private boolean isKingAttacked(TeamColor teamColor) {
+        long king = board.getPieces(teamColor, ChessPiece.PieceType.KING);
+        return king != 0
+                && Bitboards.isSquareAttacked(board, Long.numberOfTrailingZeros(king), getOtherColor(teamColor));
+    }
 
-        return true;
+    private void cacheStatus(GameStatus newStatus) {
+        status = newStatus;
+        statusKey = getZobristKey();
+        statusOver = over;
+    }
 
+    /**
+     * @return True if any piece of the given team has at least one legal move
+     */
+    private boolean hasLegalMove(TeamColor teamColor) {
+        MoveGenerator.legalMoves(board, teamColor, moveBuffer);
+        return !moveBuffer.isEmpty();
     }
 
 
@@ -260,32 +366,8 @@ public class ChessGame {
      * @param teamColor which team to check for checkmate
      * @return True if the specified team is in checkmate
      */
-
-    // get the pawns for checkmate
     public boolean isInCheckmate(TeamColor teamColor) {
-        if (!isInCheck(teamColor)){
-            return false;
-        }
-
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++){
-                ChessPosition position = new ChessPosition(row + 1, col + 1);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null && piece.getTeamColor() == teamColor){
-                    Collection<ChessMove> moves = validMoves(position);
-
-                    for (ChessMove move: moves) {
-                        if (isLegalMove(position, move)) {
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-
-        return true;
+        return isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
     /**
@@ -296,25 +378,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor)){
-            return false;
-        }
-
-        for (int row = 0; row < 8; row++)  {
-            for (int col = 0; col < 8; col++) {
-                ChessPosition position = new ChessPosition(row + 1, col + 1);
-                ChessPiece piece = board.getPiece(position);
-
-                if (piece != null && piece.getTeamColor() == teamColor){
-                    Collection<ChessMove> moves = validMoves(position);
-
-                    if (!moves.isEmpty()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return !isInCheck(teamColor) && !hasLegalMove(teamColor);
     }
 
     /**
@@ -347,6 +411,10 @@ public class ChessGame {
         copy.setBoard(this.board.deepCopy());
         copy.setTeamTurn(this.turn);
         copy.setGameOver(this.over);
+        copy.ply = this.ply;
+        copy.status = this.status;
+        copy.statusKey = this.statusKey;
+        copy.statusOver = this.statusOver;
         return copy;
     }
 
@@ -11,6 +11,19 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // one shared instance per color/type pair, laid out like ChessBoard's piece index
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : TYPES) {
+                PIECES[color.ordinal() * TYPES.length + type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor teamColor;
     private final PieceType pieceType;
 
@@ -19,6 +32,13 @@ public class ChessPiece {
         this.pieceType = type;
     }
 
+    /**
+     * Returns the shared instance for this color and type instead of allocating a new one
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal() * TYPES.length + type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -46,7 +66,8 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamColor, pieceType);
+        // same value as Objects.hash(teamColor, pieceType), without the varargs array
+        return 31 * (31 + Objects.hashCode(teamColor)) + Objects.hashCode(pieceType);
     }
 
     @Override
@@ -100,575 +121,46 @@ public class ChessPiece {
         }
     }
     public Collection<ChessMove> calculateBishopMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        int[][] directions = {{1, 1}, {1, -1}, {-1, 1}, {-1,-1}};
-
-        for (int[] dir : directions){
-            int row = startRow + dir[0];
-            int col = startCol + dir[1];
-
-            while(row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                ChessPiece piece = board.getPiece(onePosition);
-
-                if (piece != null){
-                    if (piece.getTeamColor() != this.getTeamColor()){
-                        moves.add(new ChessMove(myPosition, onePosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                row+= dir[0];
-                col+= dir[1];
-            }
-        }
-        return moves;
+        return calculateMoves(board, myPosition, PieceType.BISHOP);
     }
     public Collection<ChessMove> calculateRookMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0,-1}};
-
-        for (int[] dir : directions){
-            int row = startRow + dir[0];
-            int col = startCol + dir[1];
-
-            while(row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                ChessPiece piece = board.getPiece(onePosition);
-
-                if (piece != null){
-                    if (piece.getTeamColor() != this.getTeamColor()){
-                        moves.add(new ChessMove(myPosition, onePosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                row+= dir[0];
-                col+= dir[1];
-            }
-        }
-        return moves;
+        return calculateMoves(board, myPosition, PieceType.ROOK);
     }
     public Collection<ChessMove> calculateQueenMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0,-1}, {1,1}, {1,-1}, {-1,1}, {-1,-1}};
-
-        for (int[] dir : directions){
-            int row = startRow + dir[0];
-            int col = startCol + dir[1];
-
-            while(row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                ChessPiece piece = board.getPiece(onePosition);
-
-                if (piece != null){
-                    if (piece.getTeamColor() != this.getTeamColor()){
-                        moves.add(new ChessMove(myPosition, onePosition, null));
-                    }
-                    break;
-                }
-                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                row+= dir[0];
-                col+= dir[1];
-            }
-        }
-        return moves;
+        return calculateMoves(board, myPosition, PieceType.QUEEN);
     }
     public Collection<ChessMove> calculateKingMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0,-1}, {1,1}, {1,-1}, {-1,1}, {-1,-1}};
-
-        for (int[] dir : directions){
-            int row = startRow + dir[0];
-            int col = startCol + dir[1];
-
-            if (row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                ChessPiece piece = board.getPiece(onePosition);
-
-                if (piece != null){
-                    if (piece.getTeamColor() != this.getTeamColor()){
-                        moves.add(new ChessMove(myPosition, onePosition, null));
-                    }
-                    continue;
-                }
-                moves.add(new ChessMove(myPosition, onePosition, null));
-
-            }
-        }
-        return moves;
+        return calculateMoves(board, myPosition, PieceType.KING);
     }
     public Collection<ChessMove> calculateKnightMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        int[][] directions = {{1, 2}, {1, -2}, {-1, 2}, {-1,-2}, {2,1}, {2,-1}, {-2,1}, {-2,-1}};
-
-        for (int[] dir : directions){
-            int row = startRow + dir[0];
-            int col = startCol + dir[1];
-
-            if (row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                ChessPiece piece = board.getPiece(onePosition);
-
-                if (piece != null){
-                    if (piece.getTeamColor() != this.getTeamColor()){
-                        moves.add(new ChessMove(myPosition, onePosition, null));
-                    }
-                    continue;
-                }
-                moves.add(new ChessMove(myPosition, onePosition, null));
-
-            }
-        }
-        return moves;
+        return calculateMoves(board, myPosition, PieceType.KNIGHT);
     }
     public Collection<ChessMove> calculatePawnMoves(ChessBoard board, ChessPosition myPosition){
-        Collection<ChessMove> moves = new ArrayList<>();
-
-        int startRow = myPosition.getRow();
-        int startCol = myPosition.getColumn();
-
-        ChessPiece myPiece = board.getPiece(myPosition);
-
-        if (myPiece.getTeamColor() == ChessGame.TeamColor.WHITE){
-            int[][] directions = {{1, 0}};
-
-            for (int[] dir : directions){
-                int row = startRow + dir[0];
-                int col = startCol + dir[1];
-
-                if (row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                    ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                    ChessPiece piece = board.getPiece(onePosition);
-
-                    ChessPosition doublePosition = new ChessPosition(row + 1 + dir[0], col + 1);
-
-
-                    if (startCol == 7){
-                        // check left
-                        // get left piece
-                        ChessPosition leftPosition = new ChessPosition(startRow + 2, startCol);
-                        if (startRow == 1){
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null){
-                                if (leftPiece.getTeamColor() != this.getTeamColor()){
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                                continue;
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null){
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-                        }
-                        else if (startRow == 6) {
-                            // normal move add if null
-                            // add left
-                            // promotion
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-                        }
-                        else
-                        {
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                            }
-                        }
-
-                    }
-                    else if (startCol == 0){
-                        ChessPosition rightPosition = new ChessPosition(startRow + 2, startCol + 2);
-                        if (startRow == 1){
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, null));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null){
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-
-                        }
-                        else if (startRow == 6) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-
-                        }
-                        else
-                        {
-                            if (startRow < 7) {
-                                ChessPiece rightPiece = board.getPiece(rightPosition);
-                                if (rightPiece != null) {
-                                    if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                        moves.add(new ChessMove(myPosition, rightPosition, null));
-                                    }
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                            }
-
-                        }
-                    }
-                    else {
-                        ChessPosition rightPosition = new ChessPosition(startRow + 2, startCol + 2);
-                        ChessPosition leftPosition = new ChessPosition(startRow + 2, startCol);
-                        if (startRow == 1) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, null));
-                                }
-                            }
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                            }
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null) {
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-
-                        } else if (startRow == 6) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-
-                        } else {
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                            }
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, null));
-                                }
-                            }
-
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                            }
-
-                        }
-                    }
+        return calculateMoves(board, myPosition, PieceType.PAWN);
+    }
 
+    private Collection<ChessMove> calculateMoves(ChessBoard board, ChessPosition myPosition, PieceType type) {
+        Collection<ChessMove> moves = new ArrayList<>();
 
+        int from = ChessBoard.squareOf(myPosition);
+        long targets = Bitboards.targets(board, teamColor, type, from);
+        long lastRank = teamColor == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
 
-                }
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
 
+            ChessPosition onePosition = ChessPosition.ofSquare(to);
+            if (type == PieceType.PAWN && (lastRank & (1L << to)) != 0) {
+                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
+                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
+                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
+                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
             }
-
-        }
-        else
-        {
-            int[][] directions = {{-1, 0}};
-
-            for (int[] dir : directions){
-                int row = startRow + dir[0];
-                int col = startCol + dir[1];
-
-                if (row >= 0 && row <= 7 && col >= 0 && col <= 7){
-                    ChessPosition onePosition = new ChessPosition(row + 1, col + 1);
-
-                    ChessPiece piece = board.getPiece(onePosition);
-
-                    ChessPosition doublePosition = new ChessPosition(row + dir[0] + 1, col + 1);
-
-
-                    if (startCol == 7){
-                        // check left
-                        // get left piece
-                        ChessPosition leftPosition = new ChessPosition(startRow , startCol);
-                        if (startRow == 6){
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null){
-                                if (leftPiece.getTeamColor() != this.getTeamColor()){
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                                continue;
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null){
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-                        }
-                        else if (startRow == 1) {
-                            // normal move add if null
-                            // add left
-                            // promotion
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-                        }
-                        else
-                        {
-                            if (startRow > 0) {
-                                ChessPiece leftPiece = board.getPiece(leftPosition);
-                                if (leftPiece != null) {
-                                    if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                        moves.add(new ChessMove(myPosition, leftPosition, null));
-                                    }
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                            }
-                        }
-
-                    }
-                    else if (startCol == 0){
-                        ChessPosition rightPosition = new ChessPosition(startRow, startCol + 2);
-                        if (startRow == 6){
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, null));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null){
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-
-                        }
-                        else if (startRow == 1) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-
-                        }
-                        else
-                        {
-                            if (startRow > 0) {
-                                ChessPiece rightPiece = board.getPiece(rightPosition);
-                                if (rightPiece != null) {
-                                    if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                        moves.add(new ChessMove(myPosition, rightPosition, null));
-                                    }
-                                }
-                            }
-                            if (piece == null){
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                            }
-
-                        }
-                    }
-                    else {
-                        ChessPosition rightPosition = new ChessPosition(startRow, startCol);
-                        ChessPosition leftPosition = new ChessPosition(startRow, startCol + 2);
-                        if (startRow == 6) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, null));
-                                }
-                            }
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, null));
-                                }
-                            }
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-                                ChessPiece doublePiece = board.getPiece(doublePosition);
-                                if (doublePiece == null) {
-                                    moves.add(new ChessMove(myPosition, doublePosition, null));
-                                }
-                            }
-
-                        } else if (startRow == 1) {
-                            ChessPiece rightPiece = board.getPiece(rightPosition);
-                            if (rightPiece != null) {
-                                if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, rightPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            ChessPiece leftPiece = board.getPiece(leftPosition);
-                            if (leftPiece != null) {
-                                if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.QUEEN));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.ROOK));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.BISHOP));
-                                    moves.add(new ChessMove(myPosition, leftPosition, PieceType.KNIGHT));
-                                }
-                            }
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.QUEEN));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.ROOK));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.BISHOP));
-                                moves.add(new ChessMove(myPosition, onePosition, PieceType.KNIGHT));
-                            }
-
-                        } else {
-                            if (startRow > 0) {
-                                ChessPiece rightPiece = board.getPiece(rightPosition);
-                                if (rightPiece != null) {
-                                    if (rightPiece.getTeamColor() != this.getTeamColor()) {
-                                        moves.add(new ChessMove(myPosition, rightPosition, null));
-                                    }
-                                }
-                            }
-
-                            if (piece == null) {
-                                moves.add(new ChessMove(myPosition, onePosition, null));
-
-                            }
-                            if (startRow > 0) {
-                                ChessPiece leftPiece = board.getPiece(leftPosition);
-                                if (leftPiece != null) {
-                                    if (leftPiece.getTeamColor() != this.getTeamColor()) {
-                                        moves.add(new ChessMove(myPosition, leftPosition, null));
-                                    }
-                                }
-                            }
-
-                        }
-                    }
-
-
-
-                }
-
+            else {
+                moves.add(new ChessMove(myPosition, onePosition, null));
             }
-
         }
-
         return moves;
     }
 
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -10,6 +8,15 @@ import java.util.Objects;
  */
 public class ChessPosition {
 
+    // one shared instance per square, indexed by Bitboards square number
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = new ChessPosition(Bitboards.row(square) + 1, Bitboards.column(square) + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +25,27 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Returns the shared instance for an on-board position instead of allocating a new
+     * one. Positions off the board still get a fresh object so callers can validate them.
+     *
+     * @param row 1 codes for the bottom row
+     * @param col 1 codes for the left column
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared instance for a square numbered as in {@link Bitboards}
+     */
+    static ChessPosition ofSquare(int square) {
+        return POSITIONS[square];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -32,7 +60,8 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        // same value as Objects.hash(row, col), without the varargs array
+        return 31 * (31 + row) + col;
     }
 
 
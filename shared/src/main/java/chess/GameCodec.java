@@ -0,0 +1,182 @@
+package chess;
+
+import java.util.Base64;
+
+/**
+ * Compact encodings of a {@link ChessGame}, much smaller and cheaper to read than
+ * its Gson JSON.
+ * <p>
+ * The binary form is 38 bytes:
+ * <pre>
+ * byte  0      format version
+ * bytes 1-32   the squares, two per byte, a1 in the low nibble of byte 1 through h8
+ *              in the high nibble of byte 32; 0 is empty, otherwise piece index + 1
+ *              (white K Q B N R P, then black)
+ * byte  33     flags: bit 0 black to move, bit 1 game over
+ * bytes 34-37  ply count, big endian
+ * </pre>
+ * {@link #toText} wraps it in Base64 for text columns and messages. FEN covers the
+ * position only, so it is meant for tests and tooling rather than storage.
+ */
+public final class GameCodec {
+
+    public static final int VERSION = 1;
+    public static final int ENCODED_LENGTH = 38;
+
+    private static final int FLAG_BLACK_TO_MOVE = 1;
+    private static final int FLAG_OVER = 1 << 1;
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        byte[] bytes = new byte[ENCODED_LENGTH];
+        bytes[0] = VERSION;
+        for (int square = 0; square < 64; square++) {
+            int nibble = board.pieceIndexAt(square) + 1;
+            bytes[1 + square / 2] |= (byte) (square % 2 == 0 ? nibble : nibble << 4);
+        }
+
+        int flags = 0;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= FLAG_BLACK_TO_MOVE;
+        }
+        if (game.getGameOver()) {
+            flags |= FLAG_OVER;
+        }
+        bytes[33] = (byte) flags;
+
+        int ply = game.getPly();
+        bytes[34] = (byte) (ply >>> 24);
+        bytes[35] = (byte) (ply >>> 16);
+        bytes[36] = (byte) (ply >>> 8);
+        bytes[37] = (byte) ply;
+        return bytes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if bytes is not a game written by {@link #encode}
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length != ENCODED_LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Not an encoded game, or an unknown version");
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int b = bytes[1 + square / 2] & 0xFF;
+            int nibble = square % 2 == 0 ? b & 0xF : b >>> 4;
+            if (nibble > 12) {
+                throw new IllegalArgumentException("Bad piece code " + nibble + " on square " + square);
+            }
+            if (nibble != 0) {
+                board.setSquare(square, nibble - 1);
+            }
+        }
+
+        int flags = bytes[33];
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn((flags & FLAG_BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setGameOver((flags & FLAG_OVER) != 0);
+        game.setPly(((bytes[34] & 0xFF) << 24) | ((bytes[35] & 0xFF) << 16)
+                | ((bytes[36] & 0xFF) << 8) | (bytes[37] & 0xFF));
+        return game;
+    }
+
+    public static String toText(ChessGame game) {
+        return Base64.getEncoder().encodeToString(encode(game));
+    }
+
+    /**
+     * @throws IllegalArgumentException if text is not a game written by {@link #toText}
+     */
+    public static ChessGame fromText(String text) {
+        return decode(Base64.getDecoder().decode(text));
+    }
+
+    /**
+     * Writes the position as FEN. This ruleset has no castling or en passant, so those
+     * fields are always "-", and the halfmove clock is always 0.
+     */
+    public static String toFen(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        StringBuilder fen = new StringBuilder(64);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int index = board.pieceIndexAt(Bitboards.square(row, col));
+                if (index < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(ChessBoard.SYMBOLS.charAt(index));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+
+        boolean black = game.getTeamTurn() == ChessGame.TeamColor.BLACK;
+        return fen.append(black ? " b" : " w")
+                .append(" - - 0 ")
+                .append(game.getPly() / 2 + 1)
+                .toString();
+    }
+
+    /**
+     * Builds a game from a FEN string. Only the piece placement is required; the side to
+     * move defaults to white and the fullmove number to 1. The castling, en passant and
+     * halfmove clock fields are ignored since this ruleset has none of them.
+     *
+     * @throws IllegalArgumentException if the placement cannot be read
+     */
+    public static ChessGame fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessBoard board = new ChessBoard();
+        int row = 7;
+        int col = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row--;
+                col = 0;
+            }
+            else if (Character.isDigit(c)) {
+                col += c - '0';
+            }
+            else {
+                int index = ChessBoard.SYMBOLS.indexOf(c);
+                if (index < 0 || row < 0 || col > 7) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fields[0]);
+                }
+                board.setSquare(Bitboards.square(row, col), index);
+                col++;
+            }
+        }
+
+        boolean black = fields.length > 1 && fields[1].equals("b");
+        int fullmove = 1;
+        if (fields.length > 5) {
+            try {
+                fullmove = Math.max(Integer.parseInt(fields[5]), 1);
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad FEN fullmove number: " + fields[5]);
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(black ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setPly((fullmove - 1) * 2 + (black ? 1 : 0));
+        return game;
+    }
+}
@@ -0,0 +1,126 @@
+package chess;
+
+/**
+ * Generates strictly legal moves straight from the bitboards.
+ * <p>
+ * Checkers and pinned pieces are worked out once per call. A pinned piece may only
+ * move along the line through its king and the pinner, and while in check every
+ * non-king move has to capture the checker or block it, so nothing has to be played
+ * on the board and re-tested for check. Moves are written as {@link PackedMove}s
+ * into a caller supplied {@link MoveList} so repeated generation does not allocate.
+ */
+final class MoveGenerator {
+
+    /**
+     * Enough room for every legal move of any reachable position
+     */
+    static final int MAX_MOVES = 256;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT
+    };
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Replaces the contents of moves with every legal move for the given team
+     */
+    static void legalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        legalMoves(board, color, -1L, moves);
+    }
+
+    /**
+     * Replaces the contents of moves with the legal moves of the given team's pieces
+     * standing on fromSquares
+     */
+    static void legalMoves(ChessBoard board, ChessGame.TeamColor color, long fromSquares, MoveList moves) {
+        ChessGame.TeamColor enemy = color == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        long own = board.getPieces(color);
+        long occupied = board.getOccupied();
+        long enemyPieces = occupied & ~own;
+        long kingBoard = board.getPieces(color, ChessPiece.PieceType.KING);
+        moves.clear();
+
+        long checkMask = -1L;
+        long pinned = 0L;
+        int king = -1;
+
+        if (kingBoard != 0) {
+            king = Long.numberOfTrailingZeros(kingBoard);
+            long checkers = Bitboards.attackersTo(board, king, occupied, enemy);
+
+            if ((fromSquares & kingBoard) != 0) {
+                long targets = Bitboards.kingAttacks(king) & ~own;
+                long withoutKing = occupied ^ kingBoard;
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    if (Bitboards.attackersTo(board, to, withoutKing, enemy) == 0) {
+                        moves.add(PackedMove.of(king, to, null) | captureFlag(enemyPieces, to));
+                    }
+                }
+            }
+
+            if (Long.bitCount(checkers) > 1) {
+                return;
+            }
+            if (checkers != 0) {
+                checkMask = checkers | AttackTables.BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+            }
+
+            // sliders that would hit the king if exactly one of our pieces stepped aside
+            long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+            long snipers = (Bitboards.rookAttacks(king, enemyPieces)
+                    & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                    | (Bitboards.bishopAttacks(king, enemyPieces)
+                    & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+            while (snipers != 0) {
+                int sniper = Long.numberOfTrailingZeros(snipers);
+                snipers &= snipers - 1;
+                long blockers = AttackTables.BETWEEN[king][sniper] & occupied;
+                if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) {
+                    pinned |= blockers;
+                }
+            }
+        }
+
+        long lastRank = color == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        long pieces = own & ~kingBoard & fromSquares;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+
+            ChessPiece.PieceType type = TYPES[board.pieceIndexAt(from) % 6];
+            long targets = Bitboards.targets(board, color, type, from) & checkMask;
+            if ((pinned & (1L << from)) != 0) {
+                targets &= AttackTables.LINE[king][from];
+            }
+
+            boolean promotes = type == ChessPiece.PieceType.PAWN;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int capture = captureFlag(enemyPieces, to);
+                if (promotes && (lastRank & (1L << to)) != 0) {
+                    for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                        moves.add(PackedMove.of(from, to, promotion) | capture);
+                    }
+                }
+                else {
+                    moves.add(PackedMove.of(from, to, null) | capture);
+                }
+            }
+        }
+    }
+
+    private static int captureFlag(long enemyPieces, int to) {
+        return (enemyPieces & (1L << to)) != 0 ? PackedMove.CAPTURE : 0;
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A reusable list of {@link PackedMove}s backed by a plain int array.
+ * <p>
+ * The move generator clears and refills a list instead of allocating a new one,
+ * so a game or search can keep one list per ply and generate without garbage. The
+ * default capacity covers every reachable position; a hand-built board with more
+ * pieces than a real game can have makes the list grow instead of overflowing.
+ */
+public final class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(MoveGenerator.MAX_MOVES);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return moves[index];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(moves.length * 2, 16));
+        }
+        moves[size++] = move;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return True if the list holds a move with the same from, to and promotion
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (PackedMove.sameMove(moves[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Collection<ChessMove> toChessMoves() {
+        Collection<ChessMove> chessMoves = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(PackedMove.toChessMove(moves[i]));
+        }
+        return chessMoves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(PackedMove.toString(moves[i]));
+        }
+        return text.append(']').toString();
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+/**
+ * A move packed into the low 16 bits of an int, used by the move generator and
+ * make/unmake so that generating and checking moves does not allocate.
+ * <pre>
+ * bits  0-5   from square (a1 = 0 ... h8 = 63, see {@link Bitboards})
+ * bits  6-11  to square
+ * bits 12-14  promotion: {@link ChessPiece.PieceType} ordinal + 1, or 0 for none
+ * bit  15     capture flag
+ * </pre>
+ * {@link ChessMove} is still what crosses the API boundary; {@link #toChessMove}
+ * and {@link #fromChessMove} convert between the two.
+ */
+public final class PackedMove {
+
+    public static final int CAPTURE = 1 << 15;
+
+    // everything except the flags, which a ChessMove does not carry
+    private static final int MOVE_MASK = 0x7FFF;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion) {
+        return from | (to << 6) | ((promotion == null ? 0 : promotion.ordinal() + 1) << 12);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the piece a pawn is promoted to, or null if this is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 0x7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return True if both describe the same from, to and promotion, whatever their flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return (a & MOVE_MASK) == (b & MOVE_MASK);
+    }
+
+    public static int fromChessMove(ChessMove move) {
+        return of(ChessBoard.squareOf(move.getStartPosition()),
+                ChessBoard.squareOf(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessPosition.ofSquare(from(move)), ChessPosition.ofSquare(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, such as e2e4 or a7a8q
+     */
+    public static String toString(int move) {
+        StringBuilder text = new StringBuilder(5)
+                .append(squareName(from(move)))
+                .append(squareName(to(move)));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            text.append("kqbnrp".charAt(promotion.ordinal()));
+        }
+        return text.toString();
+    }
+
+    private static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.column(square)) + (Bitboards.row(square) + 1);
+    }
+}
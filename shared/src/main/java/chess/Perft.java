@@ -0,0 +1,198 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth.
+ * <p>
+ * The counts for well known positions are published, so a mismatch means the move
+ * generator is wrong, and the time taken gives a nodes per second figure for it.
+ * The search runs on {@link ChessGame}'s own legal move generator and make/unmake,
+ * and {@link #parallel} splits the root moves across a {@link ForkJoinPool}.
+ * <p>
+ * Run {@code main} to time the standard suite.
+ */
+public final class Perft {
+
+    /**
+     * A position from the standard suite with its published node count. Only positions
+     * where castling and en passant can never come up are listed, since this ruleset
+     * has neither.
+     */
+    public record Position(String name, String fen, int depth, long nodes) {
+    }
+
+    public static final List<Position> SUITE = List.of(
+            new Position("Initial position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 4, 197281),
+            new Position("Promote out of check", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3821001),
+            new Position("Discovered check", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658),
+            new Position("Promote to give check", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342),
+            new Position("Under promote to give check", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683),
+            new Position("Self stalemate", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217),
+            new Position("Stalemate and checkmate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584),
+            new Position("Stalemate and checkmate 2", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527)
+    );
+
+    /**
+     * Node count and how long it took to get it
+     */
+    public record Result(long nodes, long nanos) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Counts the leaf nodes depth plies below game on the calling thread
+     */
+    public static Result run(ChessGame game, int depth) {
+        long start = System.nanoTime();
+        long nodes = count(game, depth, buffers(depth));
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts the leaf nodes depth plies below game, giving each root move its own
+     * task in pool. game itself is left untouched.
+     */
+    public static Result parallel(ChessGame game, int depth, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long nodes = depth <= 1
+                ? count(game.deepCopy(), depth, buffers(1))
+                : pool.invoke(new RootSplit(game, depth));
+        return new Result(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Node count below each root move, keyed by the move in coordinate notation
+     * (e2e4, a7a8q), in generation order
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        MoveList moves = new MoveList();
+        MoveList[] buffers = buffers(depth - 1);
+        game.legalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.playMove(moves.get(i));
+            counts.put(PackedMove.toString(moves.get(i)), count(game, depth - 1, buffers));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    private static long count(ChessGame game, int depth, MoveList[] buffers) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = buffers[depth - 1];
+        game.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.playMove(moves.get(i));
+            nodes += count(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // one reusable move list per ply
+    private static MoveList[] buffers(int depth) {
+        MoveList[] buffers = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new MoveList();
+        }
+        return buffers;
+    }
+
+    private static final class RootSplit extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        // tasks are never serialized; ChessGame is not Serializable
+        private final transient ChessGame game;
+        private final int depth;
+
+        RootSplit(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            MoveList moves = new MoveList();
+            game.legalMoves(moves);
+
+            List<RecursiveTask<Long>> subtrees = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessGame child = game.deepCopy();
+                child.playMove(moves.get(i));
+                subtrees.add(new Subtree(child, depth - 1));
+            }
+            invokeAll(subtrees);
+
+            long nodes = 0;
+            for (RecursiveTask<Long> subtree : subtrees) {
+                nodes += subtree.join();
+            }
+            return nodes;
+        }
+    }
+
+    private static final class Subtree extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        // tasks are never serialized; ChessGame is not Serializable
+        private final transient ChessGame game;
+        private final int depth;
+
+        Subtree(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return count(game, depth, buffers(depth));
+        }
+    }
+
+    /**
+     * Builds a game from the piece placement and side to move fields of a FEN string.
+     * The castling and en passant fields are ignored since this ruleset has neither.
+     */
+    public static ChessGame fromFen(String fen) {
+        return GameCodec.fromFen(fen);
+    }
+
+    public static void main(String[] args) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long totalNodes = 0;
+        long totalNanos = 0;
+        boolean allMatch = true;
+
+        for (Position position : SUITE) {
+            Result result = parallel(fromFen(position.fen()), position.depth(), pool);
+            boolean match = result.nodes() == position.nodes();
+            allMatch &= match;
+            totalNodes += result.nodes();
+            totalNanos += result.nanos();
+            System.out.printf("%-28s depth %d  %,12d nodes  %,12d nps  %s%n",
+                    position.name(), position.depth(), result.nodes(), result.nodesPerSecond(),
+                    match ? "ok" : "EXPECTED " + position.nodes());
+        }
+        System.out.printf("Total %,d nodes  %,d nps%n", totalNodes, new Result(totalNodes, totalNanos).nodesPerSecond());
+
+        if (!allMatch) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions.
+ * <p>
+ * A position's key is the XOR of one key per (piece, square) pair on the board,
+ * plus {@link #BLACK_TO_MOVE} when black is to move. Since XOR undoes itself, the
+ * key can be kept up to date by toggling the keys of whatever changed. The keys come
+ * from a fixed seed so the same position hashes the same in every JVM.
+ */
+final class Zobrist {
+
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED240CL);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
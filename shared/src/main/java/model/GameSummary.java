@@ -0,0 +1,22 @@
+package model;
+
+/**
+ * A game as shown in the game list: who is playing and how far along it is, without
+ * the board
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName, Status status) {
+
+    public enum Status {
+        // a seat is still open
+        WAITING,
+        IN_PROGRESS,
+        OVER,
+    }
+
+    public static Status statusOf(String whiteUsername, String blackUsername, boolean gameOver) {
+        if (gameOver) {
+            return Status.OVER;
+        }
+        return whiteUsername == null || blackUsername == null ? Status.WAITING : Status.IN_PROGRESS;
+    }
+}
@@ -19,13 +19,21 @@ public class UserGameCommand {
     private final Integer gameID;
     private final ChessMove move;
     private final ChessPosition position;
+    // CONNECT only: send MOVE_MADE instead of a full LOAD_GAME after each move
+    private final boolean moveUpdates;
 
     public UserGameCommand(CommandType commandType, String authToken, Integer gameID, ChessMove move, ChessPosition position) {
+        this(commandType, authToken, gameID, move, position, false);
+    }
+
+    private UserGameCommand(CommandType commandType, String authToken, Integer gameID, ChessMove move,
+                            ChessPosition position, boolean moveUpdates) {
         this.commandType = commandType;
         this.authToken = authToken;
         this.gameID = gameID;
         this.move = move;
         this.position = position;
+        this.moveUpdates = moveUpdates;
     }
 
     // constructor for leave, connect, resign
@@ -33,6 +41,11 @@ public class UserGameCommand {
         this(commandType, authToken, gameID, null, null);
     }
 
+    // connect for a client that applies MOVE_MADE messages to its own copy of the game
+    public static UserGameCommand connectWithMoveUpdates(String authToken, Integer gameID) {
+        return new UserGameCommand(CommandType.CONNECT, authToken, gameID, null, null, true);
+    }
+
     // for move
     public UserGameCommand(CommandType commandType, String authToken, Integer gameID, ChessMove move) {
         this(commandType, authToken, gameID, move, null);
@@ -70,6 +83,10 @@ public class UserGameCommand {
 
     public ChessPosition getPosition() { return position;}
 
+    public boolean wantsMoveUpdates() {
+        return moveUpdates;
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -84,12 +101,13 @@ public class UserGameCommand {
                 Objects.equals(authToken, that.authToken) &&
                 Objects.equals(gameID, that.gameID) &&
                 Objects.equals(move, that.move) &&
-                Objects.equals(position, that.position);
+                Objects.equals(position, that.position) &&
+                moveUpdates == that.moveUpdates;
     }
 
     @Override
     public int hashCode() {
 
-        return Objects.hash(commandType, authToken, gameID, move, position);
+        return Objects.hash(commandType, authToken, gameID, move, position, moveUpdates);
     }
 }
@@ -2,6 +2,7 @@ package websocket.messages;
 
 import java.util.Objects;
 import java.util.Collection;
+import chess.ChessGame;
 import chess.ChessMove;
 
 /**
@@ -16,12 +17,17 @@ public class ServerMessage {
     private String errorMessage;
     private Object game;
     private Collection<ChessMove> moves;
+    private ChessMove move;
+    private ChessGame.GameStatus status;
+    private Integer sequence;
 
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
         NOTIFICATION,
         MOVES,
+        // one move and the status after it; for clients that keep their own copy of the game
+        MOVE_MADE,
     }
 
 
@@ -47,6 +53,18 @@ public class ServerMessage {
         }
     }
 
+    /**
+     * Builds a MOVE_MADE message
+     *
+     * @param sequence the game's ply after the move, so a client can tell it missed one
+     */
+    public ServerMessage(ChessMove move, ChessGame.GameStatus status, int sequence) {
+        this.serverMessageType = ServerMessageType.MOVE_MADE;
+        this.move = move;
+        this.status = status;
+        this.sequence = sequence;
+    }
+
     public ServerMessageType getServerMessageType() {
         return this.serverMessageType;
     }
@@ -68,6 +86,18 @@ public class ServerMessage {
         this.game = game;
     }
 
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+
+    public Integer getSequence() {
+        return sequence;
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -82,11 +112,14 @@ public class ServerMessage {
                 Objects.equals(message, that.message) &&
                 Objects.equals(errorMessage, that.errorMessage) &&
                 Objects.equals(game, that.game) &&
-                Objects.equals(moves, that.moves);
+                Objects.equals(moves, that.moves) &&
+                Objects.equals(move, that.move) &&
+                status == that.status &&
+                Objects.equals(sequence, that.sequence);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getServerMessageType(), message, errorMessage, game, moves);
+        return Objects.hash(getServerMessageType(), message, errorMessage, game, moves, move, status, sequence);
     }
 }
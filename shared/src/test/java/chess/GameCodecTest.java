@@ -0,0 +1,59 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @Test
+    void binaryRoundTripKeepsPositionTurnPlyAndOver() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 6), ChessPosition.of(3, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(2, 7), ChessPosition.of(4, 7), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 4), ChessPosition.of(4, 8), null));
+
+        byte[] bytes = GameCodec.encode(game);
+        ChessGame decoded = GameCodec.decode(bytes);
+
+        assertEquals(GameCodec.ENCODED_LENGTH, bytes.length);
+        assertEquals(game.getBoard(), decoded.getBoard());
+        assertEquals(game.getTeamTurn(), decoded.getTeamTurn());
+        assertEquals(4, decoded.getPly());
+        assertTrue(decoded.getGameOver());
+        assertEquals(ChessGame.GameStatus.CHECKMATE, decoded.getStatus());
+        assertEquals(game.getZobristKey(), decoded.getZobristKey());
+    }
+
+    @Test
+    void textRoundTrip() {
+        ChessGame game = Perft.fromFen(Perft.SUITE.get(2).fen());
+
+        ChessGame decoded = GameCodec.fromText(GameCodec.toText(game));
+
+        assertEquals(game.getBoard(), decoded.getBoard());
+        assertEquals(game.getTeamTurn(), decoded.getTeamTurn());
+    }
+
+    @Test
+    void fenRoundTrip() {
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+        assertEquals(start, GameCodec.toFen(new ChessGame()));
+
+        for (Perft.Position position : Perft.SUITE) {
+            assertEquals(position.fen(), GameCodec.toFen(GameCodec.fromFen(position.fen())), position.name());
+        }
+        assertEquals(9, GameCodec.fromFen("8/8/8/8/8/8/8/K6k b - - 0 5").getPly());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[5]));
+        byte[] badPiece = GameCodec.encode(new ChessGame());
+        badPiece[10] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(badPiece));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.fromText("{\"board\":{}}"));
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.fromFen("8/8/8/8/8/8/8/7x w - - 0 1"));
+    }
+}
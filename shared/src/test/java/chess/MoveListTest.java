@@ -0,0 +1,31 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveListTest {
+
+    @Test
+    void growsPastItsCapacity() {
+        MoveList moves = new MoveList(2);
+        for (int i = 0; i < 5; i++) {
+            moves.add(PackedMove.fromChessMove(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(1, i + 2), null)));
+        }
+
+        assertEquals(5, moves.size());
+        assertEquals(ChessPosition.of(1, 6), PackedMove.toChessMove(moves.get(4)).getEndPosition());
+    }
+
+    @Test
+    void handBuiltBoardWithMoreMovesThanAnyGame() {
+        // a ring of queens and rooks round an empty centre, which no real game can reach
+        ChessGame game = Perft.fromFen("kQQQQQQB/R6R/Q6Q/R6Q/Q3Q2Q/Q6Q/Q6R/QQQQQQQK w - - 0 1");
+        MoveList moves = new MoveList();
+
+        game.legalMoves(moves);
+
+        assertTrue(moves.size() > MoveGenerator.MAX_MOVES, "Expected more than " + MoveGenerator.MAX_MOVES);
+        assertDoesNotThrow(() -> game.getStatus());
+    }
+}
@@ -0,0 +1,53 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerftTest {
+
+    @Test
+    void standardSuite() {
+        for (Perft.Position position : Perft.SUITE) {
+            Perft.Result result = Perft.parallel(Perft.fromFen(position.fen()), position.depth(), ForkJoinPool.commonPool());
+            assertEquals(position.nodes(), result.nodes(), position.name());
+        }
+    }
+
+    @Test
+    void initialPositionShallowDepths() {
+        long[] expected = {1, 20, 400, 8902};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], Perft.run(new ChessGame(), depth).nodes(), "depth " + depth);
+        }
+    }
+
+    @Test
+    void divideAddsUpAndLeavesGameUnchanged() {
+        ChessGame game = new ChessGame();
+        long key = game.getZobristKey();
+
+        Map<String, Long> divide = Perft.divide(game, 3);
+
+        assertEquals(20, divide.size());
+        assertEquals(600, divide.get("e2e4"));
+        assertEquals(8902, divide.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(key, game.getZobristKey());
+        assertEquals(new ChessGame().getBoard(), game.getBoard());
+    }
+
+    @Test
+    void fromFenReadsPlacementAndTurn() {
+        ChessGame game = Perft.fromFen("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1");
+
+        assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+        assertEquals(new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(new ChessPosition(6, 2)));
+        assertEquals(new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN),
+                game.getBoard().getPiece(new ChessPosition(3, 2)));
+        assertThrows(IllegalArgumentException.class, () -> Perft.fromFen("8/8/8/8/8/8/8/7x w - - 0 1"));
+    }
+}